@@ -0,0 +1,23 @@
+package com.upgrad.quora.api.auth;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller parameter of type {@link com.upgrad.quora.service.common.AuthenticatedUser}
+ * that is resolved from the "authorization" request header by {@link
+ * AuthenticatedUserArgumentResolver}.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Authenticated {
+
+  String DEFAULT_SIGNED_OUT_MESSAGE = "User is signed out";
+
+  /** Error message returned with ATHR-002 when the access token has been signed out. */
+  String signedOutMessage() default DEFAULT_SIGNED_OUT_MESSAGE;
+}
@@ -0,0 +1,64 @@
+package com.upgrad.quora.api.auth;
+
+import com.upgrad.quora.service.business.AuthorizationService;
+import com.upgrad.quora.service.common.AuthenticatedUser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.ServletRequestBindingException;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resolves {@link AuthenticatedUser} controller parameters from the "authorization" header. The
+ * token is looked up once per request and the principal kept as a request attribute, so the
+ * services never see the raw token.
+ */
+@Component
+public class AuthenticatedUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+  static final String AUTHORIZATION_HEADER = "authorization";
+
+  private static final String PRINCIPAL_ATTRIBUTE = AuthenticatedUser.class.getName();
+
+  @Autowired private AuthorizationService authorizationService;
+
+  @Override
+  public boolean supportsParameter(final MethodParameter parameter) {
+    return AuthenticatedUser.class.equals(parameter.getParameterType());
+  }
+
+  @Override
+  public Object resolveArgument(
+      final MethodParameter parameter,
+      final ModelAndViewContainer mavContainer,
+      final NativeWebRequest webRequest,
+      final WebDataBinderFactory binderFactory)
+      throws Exception {
+    AuthenticatedUser user =
+        (AuthenticatedUser)
+            webRequest.getAttribute(PRINCIPAL_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    if (user != null) {
+      return user;
+    }
+
+    final String accessToken = webRequest.getHeader(AUTHORIZATION_HEADER);
+    if (accessToken == null) {
+      throw new ServletRequestBindingException(
+          "Missing request header '" + AUTHORIZATION_HEADER + "' for method parameter of type "
+              + parameter.getNestedParameterType().getSimpleName());
+    }
+    final Authenticated annotation = parameter.getParameterAnnotation(Authenticated.class);
+    final String signedOutMessage =
+        annotation != null
+            ? annotation.signedOutMessage()
+            : Authenticated.DEFAULT_SIGNED_OUT_MESSAGE;
+
+    user = authorizationService.authorize(accessToken, signedOutMessage);
+    webRequest.setAttribute(PRINCIPAL_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+    return user;
+  }
+}
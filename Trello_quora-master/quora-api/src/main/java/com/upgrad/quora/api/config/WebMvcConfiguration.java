@@ -0,0 +1,21 @@
+package com.upgrad.quora.api.config;
+
+import com.upgrad.quora.api.auth.AuthenticatedUserArgumentResolver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/** This Configuration registers the request-scoped authorization of the access token. */
+@Configuration
+public class WebMvcConfiguration implements WebMvcConfigurer {
+
+  @Autowired private AuthenticatedUserArgumentResolver authenticatedUserArgumentResolver;
+
+  @Override
+  public void addArgumentResolvers(final List<HandlerMethodArgumentResolver> resolvers) {
+    resolvers.add(authenticatedUserArgumentResolver);
+  }
+}
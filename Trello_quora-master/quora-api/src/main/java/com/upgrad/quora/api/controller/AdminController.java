@@ -1,7 +1,9 @@
 package com.upgrad.quora.api.controller;
 
+import com.upgrad.quora.api.auth.Authenticated;
 import com.upgrad.quora.api.model.UserDeleteResponse;
 import com.upgrad.quora.service.business.AdminService;
+import com.upgrad.quora.service.common.AuthenticatedUser;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
@@ -21,7 +23,7 @@ public class AdminController {
    * Get the user detail by user id.
    *
    * @param userId : user id of the user
-   * @param accessToken : access-token to authenticate the user
+   * @param user : signed in user resolved from the access-token
    * @throws AuthorizationFailedException : user authentication exception
    * @throws UserNotFoundException : will through a user not found exception
    * @return UserDeleteResponse
@@ -31,14 +33,15 @@ public class AdminController {
       path = "/admin/user/{userId}",
       produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
   public ResponseEntity<UserDeleteResponse> deleteUser(
-      @RequestHeader("authorization") final String accessToken,
-      @PathVariable("userId") String userId)
+      @Authenticated final AuthenticatedUser user, @PathVariable("userId") String userId)
       throws AuthorizationFailedException, UserNotFoundException {
 
-    UserEntity userEntity = adminService.deleteUser(userId, accessToken);
+    UserEntity userEntity = adminService.deleteUser(userId, user);
 
     UserDeleteResponse userDeleteResponse =
-        new UserDeleteResponse().id(userEntity.getUuid()).status("USER SUCCESSFULLY DELETED");
+        new UserDeleteResponse()
+            .id(userEntity.getUuid().toString())
+            .status("USER SUCCESSFULLY DELETED");
 
     return new ResponseEntity<UserDeleteResponse>(userDeleteResponse, HttpStatus.OK);
   }
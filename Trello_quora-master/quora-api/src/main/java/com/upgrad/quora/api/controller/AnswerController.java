@@ -1,16 +1,29 @@
 package com.upgrad.quora.api.controller;
 
+import com.upgrad.quora.api.auth.Authenticated;
 import com.upgrad.quora.api.model.*;
 import com.upgrad.quora.service.business.AnswerService;
+import com.upgrad.quora.service.business.SearchService;
+import com.upgrad.quora.service.common.AnswerDraft;
+import com.upgrad.quora.service.common.AnswerSearchSummary;
+import com.upgrad.quora.service.common.AnswerSummary;
+import com.upgrad.quora.service.common.AuthenticatedUser;
+import com.upgrad.quora.service.common.BulkItemResult;
+import com.upgrad.quora.service.common.KeysetPage;
 import com.upgrad.quora.service.entity.AnswerEntity;
+import com.upgrad.quora.service.entity.QuestionEntity;
 import com.upgrad.quora.service.exception.AnswerNotFoundException;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
+import com.upgrad.quora.service.exception.InvalidRequestParameterException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -20,13 +33,19 @@ import java.util.List;
 public class AnswerController {
 
   @Autowired private AnswerService answerService;
+
+  @Autowired private JsonArrayStreamer jsonArrayStreamer;
+
+  @Autowired private ResourceETags resourceETags;
+
+  @Autowired private SearchService searchService;
+
   /**
    * This endpoint create answer to a question
    *
    * @param questionId : Question ID that you want to answer
-   * @param accessToken : access-token to authenticate
+   * @param user : signed in user resolved from the access-token
    * @param answerRequest : The answer body
-   * @throws AuthorizationFailedException : Returns authorization failed exception
    * @throws InvalidQuestionException : If question id is invalid returns invalid question response
    * @return answer creation resopnse
    */
@@ -35,24 +54,65 @@ public class AnswerController {
       path = "/question/{questionId}/answer/create",
       produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
   public ResponseEntity<AnswerResponse> createAnswer(
-      @RequestHeader("authorization") final String accessToken,
+      @Authenticated(signedOutMessage = "User is signed out.Sign in first to post an answer")
+          final AuthenticatedUser user,
       @PathVariable("questionId") final String questionId,
       AnswerRequest answerRequest)
-      throws AuthorizationFailedException, InvalidQuestionException {
+      throws InvalidQuestionException {
     AnswerEntity answerEntity = new AnswerEntity();
     answerEntity.setAnswer(answerRequest.getAnswer());
-    answerEntity = answerService.createAnswer(answerEntity, accessToken, questionId);
+    answerEntity = answerService.createAnswer(answerEntity, user, questionId);
     AnswerResponse answerResponse = new AnswerResponse();
-    answerResponse.setId(answerEntity.getUuid());
+    answerResponse.setId(answerEntity.getUuid().toString());
     answerResponse.setStatus("ANSWER CREATED");
     return new ResponseEntity<AnswerResponse>(answerResponse, HttpStatus.CREATED);
   }
 
+  /**
+   * This endpoint creates several answers, to any questions, at once. The user is authorized once
+   * for the whole request, the questions are looked up with a single query and the response holds
+   * the outcome of every answer, in the order of the request.
+   *
+   * @param user : signed in user resolved from the access-token
+   * @param bulkAnswerRequests : answers with the ids of the questions they answer
+   * @throws InvalidRequestParameterException : If there are no answers or too many
+   * @return outcome of every answer
+   */
+  @RequestMapping(
+      method = RequestMethod.POST,
+      path = "/answer/create/bulk",
+      consumes = MediaType.APPLICATION_JSON_UTF8_VALUE,
+      produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+  public ResponseEntity<List<BulkAnswerResponse>> createAnswers(
+      @Authenticated(signedOutMessage = "User is signed out.Sign in first to post an answer")
+          final AuthenticatedUser user,
+      @RequestBody final List<BulkAnswerRequest> bulkAnswerRequests)
+      throws InvalidRequestParameterException {
+    List<AnswerDraft> drafts = new ArrayList<>(bulkAnswerRequests.size());
+    for (BulkAnswerRequest bulkAnswerRequest : bulkAnswerRequests) {
+      drafts.add(
+          bulkAnswerRequest != null
+              ? new AnswerDraft(bulkAnswerRequest.getQuestionId(), bulkAnswerRequest.getAnswer())
+              : new AnswerDraft(null, null));
+    }
+    List<BulkAnswerResponse> bulkAnswerResponses = new ArrayList<>(drafts.size());
+    for (BulkItemResult result : answerService.createAnswers(user, drafts)) {
+      bulkAnswerResponses.add(
+          result.isCreated()
+              ? new BulkAnswerResponse().id(result.getUuid()).status("ANSWER CREATED")
+              : new BulkAnswerResponse()
+                  .status("FAILED")
+                  .code(result.getCode())
+                  .message(result.getMessage()));
+    }
+    return new ResponseEntity<List<BulkAnswerResponse>>(bulkAnswerResponses, HttpStatus.OK);
+  }
+
   /**
    * This endpoint update the answer
    *
    * @param answerId : Answer ID that you want to Update
-   * @param accessToken : access-token to authenticate
+   * @param user : signed in user resolved from the access-token
    * @throws AuthorizationFailedException : Returns authorization failed exception
    * @throws AnswerNotFoundException : If answer id is invalid returns invalid answer response
    * @return answer Updated response
@@ -62,14 +122,15 @@ public class AnswerController {
       path = "/answer/edit/{answerId}",
       produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
   public ResponseEntity<AnswerEditResponse> editAnswer(
-      @RequestHeader("authorization") final String accessToken,
+      @Authenticated(signedOutMessage = "User is signed out.Sign in first to edit an answer")
+          final AuthenticatedUser user,
       @PathVariable("answerId") final String answerId,
       AnswerEditRequest answerEditRequest)
       throws AuthorizationFailedException, AnswerNotFoundException {
     AnswerEditResponse answerEditResponse = new AnswerEditResponse();
     AnswerEntity answerEntity =
-        answerService.editAnswer(accessToken, answerId, answerEditRequest.getContent());
-    answerEditResponse.setId(answerEntity.getUuid());
+        answerService.editAnswer(user, answerId, answerEditRequest.getContent());
+    answerEditResponse.setId(answerEntity.getUuid().toString());
     answerEditResponse.setStatus("ANSWER EDITED");
     return new ResponseEntity<AnswerEditResponse>(answerEditResponse, HttpStatus.OK);
   }
@@ -77,7 +138,7 @@ public class AnswerController {
    * This endpoint delete answer
    *
    * @param answerId : Answer ID that you want to Delete
-   * @param accessToken : access-token to authenticate
+   * @param user : signed in user resolved from the access-token
    * @throws AuthorizationFailedException : Returns authorization failed exception
    * @throws AnswerNotFoundException : If answer id is invalid returns invalid answer id response
    * @return answer deleted response
@@ -87,20 +148,22 @@ public class AnswerController {
       path = "/answer/delete/{answerId}",
       produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
   public ResponseEntity<AnswerDeleteResponse> deleteAnswer(
-      @RequestHeader("authorization") final String accessToken,
+      @Authenticated(signedOutMessage = "User is signed out.Sign in first to delete an answer")
+          final AuthenticatedUser user,
       @PathVariable("answerId") String answerId)
       throws AuthorizationFailedException, AnswerNotFoundException {
-    AnswerEntity answerEntity = answerService.deleteAnswer(answerId, accessToken);
+    AnswerEntity answerEntity = answerService.deleteAnswer(answerId, user);
     AnswerDeleteResponse answerDeleteResponse =
-        new AnswerDeleteResponse().id(answerEntity.getUuid()).status("ANSWER DELETED");
+        new AnswerDeleteResponse().id(answerEntity.getUuid().toString()).status("ANSWER DELETED");
     return new ResponseEntity<AnswerDeleteResponse>(answerDeleteResponse, HttpStatus.OK);
   }
   /**
-   * This endpoint get all the answer to a question
+   * This endpoint get all the answer to a question, answering 304 while the If-None-Match of the
+   * request still matches
    *
-   * @param questionId : Answer ID that you want to Delete
-   * @param accessToken : access-token to authenticate
-   * @throws AuthorizationFailedException : Returns authorization failed exception
+   * @param questionId : Question ID whose answers you want to see
+   * @param user : signed in user resolved from the access-token
+   * @param webRequest : request carrying the If-None-Match header
    * @throws InvalidQuestionException : If Question id is invalid returns invalid Question id
    *     response
    * @return All the answer to the Question
@@ -110,18 +173,101 @@ public class AnswerController {
       path = "/answer/all/{questionId}",
       produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
   public ResponseEntity<List<AnswerDetailsResponse>> getAllAnswersToQuestion(
-      @RequestHeader("authorization") final String accessToken,
-      @PathVariable("questionId") String questionId)
-      throws AuthorizationFailedException, InvalidQuestionException {
-    List<AnswerEntity> answers = answerService.getAllAnswersToQuestion(questionId, accessToken);
+      @Authenticated(signedOutMessage = "User is signed out.Sign in first to get the answers")
+          final AuthenticatedUser user,
+      @PathVariable("questionId") String questionId,
+      final WebRequest webRequest)
+      throws InvalidQuestionException {
+    if (resourceETags.isEnabled()
+        && webRequest.checkNotModified(resourceETags.answersToQuestion(questionId))) {
+      return null;
+    }
+    // The question is read once and its content shared by every answer in the response
+    QuestionEntity questionEntity = answerService.getAnsweredQuestion(questionId);
+    List<AnswerSummary> answers = answerService.getAllAnswersToQuestion(questionEntity);
     List<AnswerDetailsResponse> answerDetailsResponses = new ArrayList<>();
-    for (AnswerEntity answerEntity : answers) {
+    for (AnswerSummary answer : answers) {
       AnswerDetailsResponse answerDetailsResponse = new AnswerDetailsResponse();
-      answerDetailsResponse.setId(answerEntity.getUuid());
-      answerDetailsResponse.setQuestionContent(answerEntity.getQuestionEntity().getContent());
-      answerDetailsResponse.setAnswerContent(answerEntity.getAnswer());
+      answerDetailsResponse.setId(answer.getUuid().toString());
+      answerDetailsResponse.setQuestionContent(questionEntity.getContent());
+      answerDetailsResponse.setAnswerContent(answer.getAnswer());
       answerDetailsResponses.add(answerDetailsResponse);
     }
     return new ResponseEntity<List<AnswerDetailsResponse>>(answerDetailsResponses, HttpStatus.OK);
   }
+
+  /**
+   * This endpoint streams all the answers to a question, writing each answer to the response as it
+   * is read from the database
+   *
+   * @param questionId : Question ID whose answers you want to see
+   * @param user : signed in user resolved from the access-token
+   * @throws InvalidQuestionException : If Question id is invalid returns invalid Question id
+   *     response
+   * @return All the answer to the Question
+   */
+  @RequestMapping(
+      method = RequestMethod.GET,
+      path = "/answer/all/{questionId}",
+      params = "stream=true",
+      produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamAllAnswersToQuestion(
+      @Authenticated(signedOutMessage = "User is signed out.Sign in first to get the answers")
+          final AuthenticatedUser user,
+      @PathVariable("questionId") String questionId)
+      throws InvalidQuestionException {
+    // Check the question before the response is committed, so that errors get their status code
+    QuestionEntity questionEntity = answerService.getAnsweredQuestion(questionId);
+    StreamingResponseBody body =
+        jsonArrayStreamer.stream(
+            consumer ->
+                answerService.streamAnswersToQuestion(
+                    questionEntity,
+                    answer ->
+                        consumer.accept(
+                            new AnswerDetailsResponse()
+                                .id(answer.getUuid().toString())
+                                .questionContent(questionEntity.getContent())
+                                .answerContent(answer.getAnswer()))));
+    return new ResponseEntity<StreamingResponseBody>(body, HttpStatus.OK);
+  }
+
+  /**
+   * This endpoint searches the answers by text, best match first, one page at a time. The cursor of
+   * the next page is returned in the next-cursor response header, which is absent on the last page.
+   *
+   * @param query : words to search for
+   * @param cursor : next-cursor header of the previous page, omitted for the first page
+   * @param limit : maximum number of answers in the page
+   * @param user : signed in user resolved from the access-token
+   * @throws InvalidRequestParameterException : If the query, cursor or limit is invalid
+   * @return List of matching answers in the page
+   */
+  @RequestMapping(
+      method = RequestMethod.GET,
+      path = "/answer/search",
+      produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+  public ResponseEntity<List<AnswerDetailsResponse>> searchAnswers(
+      @RequestParam(value = "query", required = false) final String query,
+      @RequestParam(value = "cursor", required = false) final String cursor,
+      @RequestParam(value = "limit", required = false) final Integer limit,
+      @Authenticated(signedOutMessage = "User is signed out.Sign in first to search answers")
+          final AuthenticatedUser user)
+      throws InvalidRequestParameterException {
+    KeysetPage<AnswerSearchSummary> page = searchService.searchAnswers(query, cursor, limit);
+    List<AnswerDetailsResponse> answerDetailsResponses = new ArrayList<>();
+    for (AnswerSearchSummary answer : page.getItems()) {
+      answerDetailsResponses.add(
+          new AnswerDetailsResponse()
+              .id(answer.getUuid().toString())
+              .questionContent(answer.getQuestionContent())
+              .answerContent(answer.getAnswer()));
+    }
+    HttpHeaders headers = new HttpHeaders();
+    if (page.getNextCursor() != null) {
+      headers.add("next-cursor", page.getNextCursor());
+    }
+    return new ResponseEntity<List<AnswerDetailsResponse>>(
+        answerDetailsResponses, headers, HttpStatus.OK);
+  }
 }
@@ -1,16 +1,17 @@
 package com.upgrad.quora.api.controller;
 
+import com.upgrad.quora.api.auth.Authenticated;
 import com.upgrad.quora.api.model.UserDetailsResponse;
 import com.upgrad.quora.service.business.CommonService;
-import com.upgrad.quora.service.entity.UserAuthEntity;
+import com.upgrad.quora.service.common.AuthenticatedUser;
 import com.upgrad.quora.service.entity.UserEntity;
-import com.upgrad.quora.service.exception.AuthorizationFailedException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/")
@@ -18,13 +19,16 @@ public class CommonController {
 
   @Autowired private CommonService commonService;
 
+  @Autowired private ResourceETags resourceETags;
+
   /**
-   * Controller method that serves userProfile GET endpoint
+   * Controller method that serves userProfile GET endpoint, answering 304 while the If-None-Match
+   * of the request still matches
    *
    * @param userUuid
-   * @param authorization
+   * @param user
+   * @param webRequest
    * @return User profile of a user
-   * @throws AuthorizationFailedException
    * @throws UserNotFoundException
    */
   @RequestMapping(
@@ -33,13 +37,16 @@ public class CommonController {
       produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
   public ResponseEntity<UserDetailsResponse> getUserProfile(
       @PathVariable("userId") final String userUuid,
-      @RequestHeader("authorization") final String authorization)
-      throws AuthorizationFailedException, UserNotFoundException {
-
-    // Check if user has signed-in or signed-out already by validating the access-token
-    UserAuthEntity userAuthEntity = commonService.authorizeUser(authorization);
+      @Authenticated(signedOutMessage = "User is signed out.Sign in first to get user details")
+          final AuthenticatedUser user,
+      final WebRequest webRequest)
+      throws UserNotFoundException {
+    if (resourceETags.isEnabled()
+        && webRequest.checkNotModified(resourceETags.userProfile(userUuid))) {
+      return null;
+    }
 
-    // Get requested user's details after signed in user is authorized
+    // Get requested user's details, the signed in user has already been authorized
     UserEntity existingUser = commonService.getUserByUuid(userUuid);
 
     // Creating new UserDetailsResponse object to send user profile details in response
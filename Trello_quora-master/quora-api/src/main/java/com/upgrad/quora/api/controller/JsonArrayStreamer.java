@@ -0,0 +1,55 @@
+package com.upgrad.quora.api.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes a JSON array to the response element by element as the rows are read, so that listings of
+ * any size are served with constant memory. Used by the stream=true variants of the listing
+ * endpoints. The array is only closed once every element is written, a body cut short by an error
+ * is not valid JSON.
+ */
+@Component
+public class JsonArrayStreamer {
+
+  @Autowired private ObjectMapper objectMapper;
+
+  /** Source of the elements, typically a service method reading rows through a cursor. */
+  @FunctionalInterface
+  public interface ElementSource<T> {
+    void forEach(Consumer<T> consumer);
+  }
+
+  /**
+   * @param source : hands the elements of the array to the consumer one at a time
+   * @return response body writing the array
+   */
+  public <T> StreamingResponseBody stream(final ElementSource<T> source) {
+    return outputStream -> {
+      try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+        // The status is sent with the first element, so a failure midway must leave the array open
+        // for the client to see the body is incomplete instead of closing it on the way out
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        generator.writeStartArray();
+        source.forEach(
+            element -> {
+              try {
+                generator.writeObject(element);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+        generator.writeEndArray();
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    };
+  }
+}
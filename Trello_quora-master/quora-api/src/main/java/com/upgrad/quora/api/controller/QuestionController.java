@@ -1,16 +1,27 @@
 package com.upgrad.quora.api.controller;
 
+import com.upgrad.quora.api.auth.Authenticated;
 import com.upgrad.quora.api.model.*;
 import com.upgrad.quora.service.business.QuestionService;
+import com.upgrad.quora.service.business.SearchService;
+import com.upgrad.quora.service.common.AuthenticatedUser;
+import com.upgrad.quora.service.common.BulkItemResult;
+import com.upgrad.quora.service.common.KeysetPage;
+import com.upgrad.quora.service.common.QuestionSummary;
 import com.upgrad.quora.service.entity.QuestionEntity;
+import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
+import com.upgrad.quora.service.exception.InvalidRequestParameterException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
@@ -22,13 +33,20 @@ public class QuestionController {
 
   @Autowired private QuestionService questionService;
 
+  @Autowired private SearchService searchService;
+
+  @Autowired private JsonArrayStreamer jsonArrayStreamer;
+
+  @Autowired private QuestionListingCache questionListingCache;
+
+  @Autowired private ResourceETags resourceETags;
+
   /**
    * Controller method to handle createQuestion POST endpoint
    *
    * @param questionRequest
-   * @param authorization
+   * @param user
    * @return QuestionResponse
-   * @throws AuthorizationFailedException
    */
   @RequestMapping(
       method = RequestMethod.POST,
@@ -36,50 +54,169 @@ public class QuestionController {
       consumes = MediaType.APPLICATION_JSON_UTF8_VALUE,
       produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
   public ResponseEntity<QuestionResponse> createQuestion(
-      QuestionRequest questionRequest, @RequestHeader("authorization") final String authorization)
-      throws AuthorizationFailedException {
+      QuestionRequest questionRequest,
+      @Authenticated(signedOutMessage = "User is signed out.Sign in first to post a question")
+          final AuthenticatedUser user) {
     // Create new Question Entity
     QuestionEntity questionEntity = new QuestionEntity();
     questionEntity.setContent(questionRequest.getContent());
     questionEntity.setDate(ZonedDateTime.now());
 
-    // Authorize the user who is trying to create question and create question
-    final QuestionEntity createdQuestion =
-        questionService.createQuestion(authorization, questionEntity);
+    // Create question on behalf of the signed in user
+    final QuestionEntity createdQuestion = questionService.createQuestion(user, questionEntity);
 
     // Create QuestionResponse and return it to user
     QuestionResponse questionResponse =
-        new QuestionResponse().id(questionEntity.getUuid()).status("QUESTION CREATED");
+        new QuestionResponse().id(questionEntity.getUuid().toString()).status("QUESTION CREATED");
     return new ResponseEntity<QuestionResponse>(questionResponse, HttpStatus.OK);
   }
 
   /**
-   * Controller method to handle GET request to fetch all questions
+   * Controller method to handle POST request to create several questions at once. The user is
+   * authorized once for the whole request and the response holds the outcome of every question,
+   * in the order of the request.
    *
-   * @param authorization
-   * @return List of all questions
-   * @throws AuthorizationFailedException
+   * @param questionRequests : questions to create
+   * @param user
+   * @return List of BulkQuestionResponse
+   * @throws InvalidRequestParameterException : if there are no questions or too many
+   */
+  @RequestMapping(
+      method = RequestMethod.POST,
+      path = "/question/create/bulk",
+      consumes = MediaType.APPLICATION_JSON_UTF8_VALUE,
+      produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+  public ResponseEntity<List<BulkQuestionResponse>> createQuestions(
+      @RequestBody final List<QuestionRequest> questionRequests,
+      @Authenticated(signedOutMessage = "User is signed out.Sign in first to post a question")
+          final AuthenticatedUser user)
+      throws InvalidRequestParameterException {
+    List<String> contents = new ArrayList<>(questionRequests.size());
+    for (QuestionRequest questionRequest : questionRequests) {
+      contents.add(questionRequest != null ? questionRequest.getContent() : null);
+    }
+    List<BulkQuestionResponse> responses = new ArrayList<>(contents.size());
+    for (BulkItemResult result : questionService.createQuestions(user, contents)) {
+      responses.add(
+          result.isCreated()
+              ? new BulkQuestionResponse().id(result.getUuid()).status("QUESTION CREATED")
+              : new BulkQuestionResponse()
+                  .status("FAILED")
+                  .code(result.getCode())
+                  .message(result.getMessage()));
+    }
+    return new ResponseEntity<List<BulkQuestionResponse>>(responses, HttpStatus.OK);
+  }
+
+  /**
+   * Controller method to handle GET request to fetch all questions, newest first, one page at a
+   * time. The cursor of the next page is returned in the next-cursor response header, which is
+   * absent on the last page. Pages are served from {@link QuestionListingCache} until a question
+   * is created, edited or deleted, and requests whose If-None-Match still matches get 304.
+   *
+   * @param cursor : next-cursor header of the previous page, omitted for the first page
+   * @param limit : maximum number of questions in the page
+   * @param user
+   * @param webRequest
+   * @return List of questions in the page
+   * @throws InvalidRequestParameterException
    */
   @RequestMapping(
       method = RequestMethod.GET,
       path = "/question/all",
       produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-  public ResponseEntity<List<QuestionDetailsResponse>> getAllQuestions(
-      @RequestHeader("authorization") final String authorization)
-      throws AuthorizationFailedException {
-    // Authorize the user by passing in access-token of the user and Fetch list of all questions
-    List<QuestionEntity> allQuestions = questionService.getAllQuestions(authorization);
-
-    // List to add QuestionResponse entities
-    final List<QuestionDetailsResponse> questionResponseList = new ArrayList<>();
-
-    // Extract Uuid and content from each QuestionResponse entity
-    for (QuestionEntity question : allQuestions) {
-      String uuid = question.getUuid();
-      String content = question.getContent();
-      questionResponseList.add(new QuestionDetailsResponse().id(uuid).content(content));
+  public ResponseEntity<byte[]> getAllQuestions(
+      @RequestParam(value = "cursor", required = false) final String cursor,
+      @RequestParam(value = "limit", required = false) final Integer limit,
+      @Authenticated(signedOutMessage = "User is signed out.Sign in first to get all questions")
+          final AuthenticatedUser user,
+      final WebRequest webRequest)
+      throws InvalidRequestParameterException {
+    if (resourceETags.isEnabled()
+        && webRequest.checkNotModified(resourceETags.allQuestions())) {
+      return null;
     }
-    return new ResponseEntity<List<QuestionDetailsResponse>>(questionResponseList, HttpStatus.OK);
+    QuestionListingCache.Listing listing =
+        questionListingCache.getAllQuestions(
+            cursor,
+            limit,
+            () -> {
+              // Fetch one page of questions
+              KeysetPage<QuestionSummary> page = questionService.getQuestionsPage(cursor, limit);
+
+              // List to add QuestionResponse entities
+              final List<QuestionDetailsResponse> questionResponseList = new ArrayList<>();
+
+              // Extract Uuid and content from each QuestionResponse entity
+              for (QuestionSummary question : page.getItems()) {
+                questionResponseList.add(toQuestionDetailsResponse(question));
+              }
+              return new KeysetPage<>(questionResponseList, page.getNextCursor());
+            });
+    HttpHeaders headers = new HttpHeaders();
+    if (listing.getNextCursor() != null) {
+      headers.add("next-cursor", listing.getNextCursor());
+    }
+    return new ResponseEntity<byte[]>(listing.getBody(), headers, HttpStatus.OK);
+  }
+
+  /**
+   * Controller method to handle GET request to fetch every question at once. The questions are read
+   * through a database cursor and written to the response as they arrive.
+   *
+   * @param user
+   * @return all questions, newest first
+   */
+  @RequestMapping(
+      method = RequestMethod.GET,
+      path = "/question/all",
+      params = "stream=true",
+      produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamAllQuestions(
+      @Authenticated(signedOutMessage = "User is signed out.Sign in first to get all questions")
+          final AuthenticatedUser user) {
+    StreamingResponseBody body =
+        jsonArrayStreamer.stream(
+            consumer ->
+                questionService.streamAllQuestions(
+                    question -> consumer.accept(toQuestionDetailsResponse(question))));
+    return new ResponseEntity<StreamingResponseBody>(body, HttpStatus.OK);
+  }
+
+  /**
+   * Controller method to handle GET request to search the questions by content, best match first,
+   * one page at a time. The cursor of the next page is returned in the next-cursor response header,
+   * which is absent on the last page.
+   *
+   * @param query : words to search for
+   * @param cursor : next-cursor header of the previous page, omitted for the first page
+   * @param limit : maximum number of questions in the page
+   * @param user
+   * @return List of matching questions in the page
+   * @throws InvalidRequestParameterException
+   */
+  @RequestMapping(
+      method = RequestMethod.GET,
+      path = "/question/search",
+      produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+  public ResponseEntity<List<QuestionDetailsResponse>> searchQuestions(
+      @RequestParam(value = "query", required = false) final String query,
+      @RequestParam(value = "cursor", required = false) final String cursor,
+      @RequestParam(value = "limit", required = false) final Integer limit,
+      @Authenticated(signedOutMessage = "User is signed out.Sign in first to search questions")
+          final AuthenticatedUser user)
+      throws InvalidRequestParameterException {
+    KeysetPage<QuestionSummary> page = searchService.searchQuestions(query, cursor, limit);
+    List<QuestionDetailsResponse> questionResponseList = new ArrayList<>();
+    for (QuestionSummary question : page.getItems()) {
+      questionResponseList.add(toQuestionDetailsResponse(question));
+    }
+    HttpHeaders headers = new HttpHeaders();
+    if (page.getNextCursor() != null) {
+      headers.add("next-cursor", page.getNextCursor());
+    }
+    return new ResponseEntity<List<QuestionDetailsResponse>>(
+        questionResponseList, headers, HttpStatus.OK);
   }
 
   /**
@@ -87,7 +224,7 @@ public class QuestionController {
    *
    * @param questionEditRequest
    * @param questionUuid
-   * @param authorization
+   * @param user
    * @return QuestionEditResponse
    * @throws AuthorizationFailedException
    * @throws InvalidQuestionException
@@ -100,54 +237,71 @@ public class QuestionController {
   public ResponseEntity<QuestionEditResponse> editQuestionContent(
       QuestionEditRequest questionEditRequest,
       @PathVariable("questionId") final String questionUuid,
-      @RequestHeader("authorization") final String authorization)
+      @Authenticated(signedOutMessage = "User is signed out.Sign in first to edit the question")
+          final AuthenticatedUser user)
       throws AuthorizationFailedException, InvalidQuestionException {
     // Set the user typed content as the new content of the Question entity
     String content = questionEditRequest.getContent();
 
-    // Authorize user and edit the question with Uuid passed
+    // Check ownership and edit the question with Uuid passed
     QuestionEntity questionEntity =
-        questionService.editQuestionContent(authorization, questionUuid, content);
+        questionService.editQuestionContent(user, questionUuid, content);
 
     // Set the Uuid and status of edited question in response
     QuestionEditResponse questionEditResponse =
-        new QuestionEditResponse().id(questionEntity.getUuid()).status("QUESTION EDITED");
+        new QuestionEditResponse()
+            .id(questionEntity.getUuid().toString())
+            .status("QUESTION EDITED");
     return new ResponseEntity<QuestionEditResponse>(questionEditResponse, HttpStatus.OK);
   }
 
   /**
-   * Controller method to get all questions posted by a user
+   * Controller method to get all questions posted by a user, answering 304 while the
+   * If-None-Match of the request still matches
    *
-   * @param accessToken
+   * @param user
    * @param userId
+   * @param webRequest
    * @return
-   * @throws AuthorizationFailedException
    * @throws UserNotFoundException
    */
   @RequestMapping(
       method = RequestMethod.GET,
       path = "question/all/{userId}",
       produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-  public ResponseEntity<List<QuestionDetailsResponse>> getQuestionByUserId(
-      @RequestHeader("authorization") final String accessToken,
-      @PathVariable("userId") String userId)
-      throws AuthorizationFailedException, UserNotFoundException {
-    List<QuestionEntity> questions = questionService.getAllQuestionsByUser(userId, accessToken);
-    List<QuestionDetailsResponse> questionDetailResponses = new ArrayList<>();
-    for (QuestionEntity questionEntity : questions) {
-      QuestionDetailsResponse questionDetailResponse = new QuestionDetailsResponse();
-      questionDetailResponse.setId(questionEntity.getUuid());
-      questionDetailResponse.setContent(questionEntity.getContent());
-      questionDetailResponses.add(questionDetailResponse);
+  public ResponseEntity<byte[]> getQuestionByUserId(
+      @Authenticated(
+              signedOutMessage =
+                  "User is signed out.Sign in first to get all questions posted by a specific user")
+          final AuthenticatedUser user,
+      @PathVariable("userId") String userId,
+      final WebRequest webRequest)
+      throws UserNotFoundException {
+    if (resourceETags.isEnabled()
+        && webRequest.checkNotModified(resourceETags.questionsByUser(userId))) {
+      return null;
     }
-    return new ResponseEntity<List<QuestionDetailsResponse>>(
-        questionDetailResponses, HttpStatus.OK);
+    QuestionListingCache.Listing listing =
+        questionListingCache.getQuestionsByUser(
+            userId,
+            () -> {
+              List<QuestionSummary> questions = questionService.getAllQuestionsByUser(userId);
+              List<QuestionDetailsResponse> questionDetailResponses = new ArrayList<>();
+              for (QuestionSummary question : questions) {
+                QuestionDetailsResponse questionDetailResponse = new QuestionDetailsResponse();
+                questionDetailResponse.setId(question.getUuid().toString());
+                questionDetailResponse.setContent(question.getContent());
+                questionDetailResponses.add(questionDetailResponse);
+              }
+              return new KeysetPage<>(questionDetailResponses, null);
+            });
+    return new ResponseEntity<byte[]>(listing.getBody(), HttpStatus.OK);
   }
 
   /**
    * Controller method to handle DELETE request to delete question
    *
-   * @param accessToken
+   * @param user
    * @param questionId
    * @return
    * @throws AuthorizationFailedException
@@ -155,14 +309,51 @@ public class QuestionController {
    */
   @RequestMapping(method = RequestMethod.DELETE, path = "/question/delete/{questionId}")
   public ResponseEntity<QuestionDeleteResponse> deleteQuestion(
-      @RequestHeader("authorization") final String accessToken,
+      @Authenticated(signedOutMessage = "User is signed out.Sign in first to delete the question")
+          final AuthenticatedUser user,
       @PathVariable("questionId") final String questionId)
       throws AuthorizationFailedException, InvalidQuestionException {
 
-    QuestionEntity questionEntity = questionService.deleteQuestion(accessToken, questionId);
+    QuestionEntity questionEntity = questionService.deleteQuestion(user, questionId);
     QuestionDeleteResponse questionDeleteResponse = new QuestionDeleteResponse();
-    questionDeleteResponse.setId(questionEntity.getUuid());
+    questionDeleteResponse.setId(questionEntity.getUuid().toString());
     questionDeleteResponse.setStatus("QUESTION DELETED");
     return new ResponseEntity<QuestionDeleteResponse>(questionDeleteResponse, HttpStatus.OK);
   }
+
+  /**
+   * Controller method to stream all questions posted by a user
+   *
+   * @param user
+   * @param userId
+   * @return all questions posted by the user
+   * @throws UserNotFoundException
+   */
+  @RequestMapping(
+      method = RequestMethod.GET,
+      path = "question/all/{userId}",
+      params = "stream=true",
+      produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamQuestionsByUserId(
+      @Authenticated(
+              signedOutMessage =
+                  "User is signed out.Sign in first to get all questions posted by a specific user")
+          final AuthenticatedUser user,
+      @PathVariable("userId") String userId)
+      throws UserNotFoundException {
+    // Check the user before the response is committed, so that errors get their status code
+    UserEntity owner = questionService.getQuestionsOwner(userId);
+    StreamingResponseBody body =
+        jsonArrayStreamer.stream(
+            consumer ->
+                questionService.streamQuestionsByUser(
+                    owner, question -> consumer.accept(toQuestionDetailsResponse(question))));
+    return new ResponseEntity<StreamingResponseBody>(body, HttpStatus.OK);
+  }
+
+  private static QuestionDetailsResponse toQuestionDetailsResponse(QuestionSummary question) {
+    return new QuestionDetailsResponse()
+        .id(question.getUuid().toString())
+        .content(question.getContent());
+  }
 }
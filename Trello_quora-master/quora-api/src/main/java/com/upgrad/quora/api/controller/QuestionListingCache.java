@@ -0,0 +1,134 @@
+package com.upgrad.quora.api.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upgrad.quora.api.model.QuestionDetailsResponse;
+import com.upgrad.quora.service.business.ResourceVersions;
+import com.upgrad.quora.service.common.ConcurrentLruCache;
+import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.KeysetPage;
+import com.upgrad.quora.service.common.ResourceIds;
+import com.upgrad.quora.service.common.UnexpectedException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Read-through cache of serialized question listings: the pages of /question/all and the listings
+ * of /question/all/{userId}. Entries are keyed by the {@link ResourceVersions} read before the
+ * listing was loaded, so repeated reads are answered from memory until a question write commits.
+ * Every entry also expires after quora.question-listing-cache.time-to-live-seconds, which drops
+ * the entries of superseded versions and bounds how long a write made on another instance, which
+ * does not move the versions of this one, goes unseen.
+ */
+@Component
+public class QuestionListingCache implements MeterBinder {
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @Autowired private ResourceVersions resourceVersions;
+
+  private final boolean enabled;
+
+  private final ConcurrentLruCache<String, Listing> cache;
+
+  public QuestionListingCache(
+      @Value("${quora.question-listing-cache.enabled:true}") final boolean enabled,
+      @Value("${quora.question-listing-cache.maximum-size:1000}") final int maximumSize,
+      @Value("${quora.question-listing-cache.time-to-live-seconds:30}")
+          final long timeToLiveSeconds) {
+    this.enabled = enabled;
+    this.cache = new ConcurrentLruCache<>(maximumSize, timeToLiveSeconds * 1000L);
+  }
+
+  /** Loads a listing from the database on a cache miss. */
+  @FunctionalInterface
+  public interface Loader<E extends Exception> {
+    KeysetPage<QuestionDetailsResponse> load() throws E;
+  }
+
+  /** JSON body of a listing and the cursor of the page after it, if any. */
+  public static final class Listing {
+
+    private final byte[] body;
+
+    private final String nextCursor;
+
+    private Listing(final byte[] body, final String nextCursor) {
+      this.body = body;
+      this.nextCursor = nextCursor;
+    }
+
+    public byte[] getBody() {
+      return body;
+    }
+
+    public String getNextCursor() {
+      return nextCursor;
+    }
+  }
+
+  /**
+   * @param cursor : cursor parameter of the request, null for the first page
+   * @param limit : limit parameter of the request, null for the default
+   * @param loader : loads the page on a cache miss
+   * @return the page of all questions
+   */
+  public <E extends Exception> Listing getAllQuestions(
+      final String cursor, final Integer limit, final Loader<E> loader) throws E {
+    final long version = resourceVersions.getAllQuestionsVersion();
+    return get("all:" + version + ":" + limit + ":" + cursor, loader);
+  }
+
+  /**
+   * @param userUuid : uuid of the user whose questions are listed
+   * @param loader : loads the listing on a cache miss
+   * @return the questions posted by the user
+   */
+  public <E extends Exception> Listing getQuestionsByUser(
+      final String userUuid, final Loader<E> loader) throws E {
+    final UUID uuid = ResourceIds.toUuid(userUuid);
+    final long version = resourceVersions.getQuestionsByUserVersion(uuid);
+    return get("user:" + version + ":" + uuid, loader);
+  }
+
+  private <E extends Exception> Listing get(final String key, final Loader<E> loader) throws E {
+    if (!enabled) {
+      return serialize(loader.load());
+    }
+    Listing listing = cache.get(key);
+    if (listing == null) {
+      listing = serialize(loader.load());
+      cache.put(key, listing);
+    }
+    return listing;
+  }
+
+  private Listing serialize(final KeysetPage<QuestionDetailsResponse> page) {
+    try {
+      return new Listing(objectMapper.writeValueAsBytes(page.getItems()), page.getNextCursor());
+    } catch (JsonProcessingException e) {
+      throw new UnexpectedException(GenericErrorCode.GEN_001, e);
+    }
+  }
+
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    FunctionCounter.builder(
+            "quora.question.listing.cache.requests", cache, ConcurrentLruCache::hitCount)
+        .tag("result", "hit")
+        .register(registry);
+    FunctionCounter.builder(
+            "quora.question.listing.cache.requests", cache, ConcurrentLruCache::missCount)
+        .tag("result", "miss")
+        .register(registry);
+    Gauge.builder("quora.question.listing.cache.size", cache, ConcurrentLruCache::size)
+        .register(registry);
+  }
+}
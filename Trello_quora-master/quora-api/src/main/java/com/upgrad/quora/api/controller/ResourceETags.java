@@ -0,0 +1,66 @@
+package com.upgrad.quora.api.controller;
+
+import com.upgrad.quora.service.business.ResourceVersions;
+import com.upgrad.quora.service.common.ResourceIds;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Strong ETags of the polled read endpoints, made of the start time of this instance and the
+ * {@link ResourceVersions} of the resource. They are known before anything is loaded, so handlers
+ * answer a matching If-None-Match with 304 straight away.
+ *
+ * <p>The versions only count the writes made on this instance, so an ETag would go on matching
+ * after another instance changed the resource. ETags are therefore only sent when
+ * quora.etags.enabled declares a single instance deployment.
+ */
+@Component
+public class ResourceETags {
+
+  @Autowired private ResourceVersions resourceVersions;
+
+  private final boolean enabled;
+
+  public ResourceETags(@Value("${quora.etags.enabled:false}") final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /** @return true if the handlers send ETags and answer If-None-Match */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** @return ETag of every page of /question/all */
+  public String allQuestions() {
+    return of(resourceVersions.getAllQuestionsVersion());
+  }
+
+  /**
+   * @param userUuid : uuid of the user whose questions are listed
+   * @return ETag of /question/all/{userId}
+   */
+  public String questionsByUser(final String userUuid) {
+    return of(resourceVersions.getQuestionsByUserVersion(ResourceIds.toUuid(userUuid)));
+  }
+
+  /**
+   * @param questionUuid : uuid of the question whose answers are listed
+   * @return ETag of /answer/all/{questionId}
+   */
+  public String answersToQuestion(final String questionUuid) {
+    return of(resourceVersions.getAnswersToQuestionVersion(ResourceIds.toUuid(questionUuid)));
+  }
+
+  /**
+   * @param userUuid : uuid of the user
+   * @return ETag of /userprofile/{userId}
+   */
+  public String userProfile(final String userUuid) {
+    return of(resourceVersions.getUserProfileVersion(ResourceIds.toUuid(userUuid)));
+  }
+
+  private String of(final long version) {
+    return "\"" + Long.toString(resourceVersions.getBootEpoch(), 36) + "-" + version + "\"";
+  }
+}
@@ -4,12 +4,18 @@ import com.upgrad.quora.api.model.SigninResponse;
 import com.upgrad.quora.api.model.SignoutResponse;
 import com.upgrad.quora.api.model.SignupUserRequest;
 import com.upgrad.quora.api.model.SignupUserResponse;
+import com.upgrad.quora.api.model.UserAvailabilityResponse;
+import com.upgrad.quora.service.business.SigninRateLimiter;
 import com.upgrad.quora.service.business.UserAuthenticationService;
+import com.upgrad.quora.service.business.UserAvailabilityIndex;
 import com.upgrad.quora.service.entity.UserAuthEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthenticationFailedException;
+import com.upgrad.quora.service.exception.InvalidRequestParameterException;
+import com.upgrad.quora.service.exception.ServiceUnavailableException;
 import com.upgrad.quora.service.exception.SignOutRestrictedException;
 import com.upgrad.quora.service.exception.SignUpRestrictedException;
+import com.upgrad.quora.service.exception.TooManyRequestsException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -18,8 +24,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import java.util.Base64;
 
 @RestController
@@ -28,12 +36,17 @@ public class UserController {
 
   @Autowired private UserAuthenticationService userAuthService;
 
+  @Autowired private SigninRateLimiter signinRateLimiter;
+
+  @Autowired private UserAvailabilityIndex userAvailabilityIndex;
+
   /**
    * This method is for user signup. This method receives the object of SignupUserRequest type with
    * its attributes being set.
    *
    * @return SignupUserResponse - UUID of the user created.
    * @throws SignUpRestrictedException - if the username or email already exist in the database.
+   * @throws ServiceUnavailableException - if the server is too busy hashing other passwords.
    */
   @RequestMapping(
       method = RequestMethod.POST,
@@ -41,7 +54,7 @@ public class UserController {
       consumes = MediaType.APPLICATION_JSON_UTF8_VALUE,
       produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
   public ResponseEntity<SignupUserResponse> signup(SignupUserRequest signupUserRequest)
-      throws SignUpRestrictedException {
+      throws SignUpRestrictedException, ServiceUnavailableException {
 
     UserEntity userEntity = new UserEntity();
     userEntity.setFirstName(signupUserRequest.getFirstName());
@@ -58,36 +71,74 @@ public class UserController {
     UserEntity createdUserEntity = userAuthService.signup(userEntity);
     SignupUserResponse userResponse =
         new SignupUserResponse()
-            .id(createdUserEntity.getUuid())
+            .id(createdUserEntity.getUuid().toString())
             .status("USER SUCCESSFULLY REGISTERED");
     return new ResponseEntity<SignupUserResponse>(userResponse, HttpStatus.CREATED);
   }
 
+  /**
+   * Tells whether a username and/or email address can still be used to signup.
+   *
+   * @param userName : username to check, optional
+   * @param emailAddress : email address to check, optional
+   * @return UserAvailabilityResponse - availability of each value given
+   * @throws InvalidRequestParameterException - if neither value is given
+   */
+  @RequestMapping(
+      method = RequestMethod.GET,
+      path = "/user/available",
+      produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+  public ResponseEntity<UserAvailabilityResponse> checkAvailability(
+      @RequestParam(value = "userName", required = false) final String userName,
+      @RequestParam(value = "emailAddress", required = false) final String emailAddress)
+      throws InvalidRequestParameterException {
+    if (userName == null && emailAddress == null) {
+      throw new InvalidRequestParameterException(
+          "REQ-001", "Enter a username or an email address to check");
+    }
+    UserAvailabilityResponse availabilityResponse = new UserAvailabilityResponse();
+    if (userName != null) {
+      availabilityResponse.setUserNameAvailable(
+          userAvailabilityIndex.isUserNameAvailable(userName));
+    }
+    if (emailAddress != null) {
+      availabilityResponse.setEmailAddressAvailable(
+          userAvailabilityIndex.isEmailAvailable(emailAddress));
+    }
+    return new ResponseEntity<UserAvailabilityResponse>(availabilityResponse, HttpStatus.OK);
+  }
+
   /**
    * This method is for a user to singin.
    *
    * @param authorization for the basic authentication
+   * @param request to read the client address from
    * @return Signin resopnse which has userId and access-token in response header.
    * @throws AuthenticationFailedException : if username or password is invalid
+   * @throws ServiceUnavailableException : if the server is too busy hashing other passwords
+   * @throws TooManyRequestsException : if the username or client address is being throttled
    */
   @RequestMapping(
       method = RequestMethod.POST,
       path = "/user/signin",
       produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
   public ResponseEntity<SigninResponse> signin(
-      @RequestHeader("authorization") final String authorization)
-      throws AuthenticationFailedException {
+      @RequestHeader("authorization") final String authorization,
+      final HttpServletRequest request)
+      throws AuthenticationFailedException, ServiceUnavailableException, TooManyRequestsException {
 
     byte[] decode = Base64.getDecoder().decode(authorization.split("Basic ")[1]);
     String decodedText = new String(decode);
     String[] decodedArray = decodedText.split(":");
+    // Throttle before any database lookup or password hashing happens
+    signinRateLimiter.acquire(decodedArray[0], request.getRemoteAddr());
     UserAuthEntity userAuthEntity = userAuthService.signin(decodedArray[0], decodedArray[1]);
 
     HttpHeaders headers = new HttpHeaders();
     headers.add("access-token", userAuthEntity.getAccessToken());
 
     SigninResponse signinResponse = new SigninResponse();
-    signinResponse.setId(userAuthEntity.getUserEntity().getUuid());
+    signinResponse.setId(userAuthEntity.getUserEntity().getUuid().toString());
     signinResponse.setMessage("SIGNED IN SUCCESSFULLY");
 
     return new ResponseEntity<SigninResponse>(signinResponse, headers, HttpStatus.OK);
@@ -108,7 +159,9 @@ public class UserController {
       @RequestHeader("authorization") final String acessToken) throws SignOutRestrictedException {
     UserEntity userEntity = userAuthService.signout(acessToken);
     SignoutResponse signoutResponse =
-        new SignoutResponse().id(userEntity.getUuid()).message("SIGNED OUT SUCCESSFULLY");
+        new SignoutResponse()
+            .id(userEntity.getUuid().toString())
+            .message("SIGNED OUT SUCCESSFULLY");
     return new ResponseEntity<SignoutResponse>(signoutResponse, HttpStatus.OK);
   }
 }
@@ -66,4 +66,28 @@ public class RestExceptionHandler {
         new ErrorResponse().code(exception.getCode()).message(exception.getErrorMessage()),
         HttpStatus.NOT_FOUND);
   }
+
+  @ExceptionHandler(ServiceUnavailableException.class)
+  public ResponseEntity<ErrorResponse> serviceUnavailableException(
+      ServiceUnavailableException exception, WebRequest request) {
+    return new ResponseEntity<ErrorResponse>(
+        new ErrorResponse().code(exception.getCode()).message(exception.getErrorMessage()),
+        HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
+  @ExceptionHandler(TooManyRequestsException.class)
+  public ResponseEntity<ErrorResponse> tooManyRequestsException(
+      TooManyRequestsException exception, WebRequest request) {
+    return new ResponseEntity<ErrorResponse>(
+        new ErrorResponse().code(exception.getCode()).message(exception.getErrorMessage()),
+        HttpStatus.TOO_MANY_REQUESTS);
+  }
+
+  @ExceptionHandler(InvalidRequestParameterException.class)
+  public ResponseEntity<ErrorResponse> invalidRequestParameterException(
+      InvalidRequestParameterException exception, WebRequest request) {
+    return new ResponseEntity<ErrorResponse>(
+        new ErrorResponse().code(exception.getCode()).message(exception.getErrorMessage()),
+        HttpStatus.BAD_REQUEST);
+  }
 }
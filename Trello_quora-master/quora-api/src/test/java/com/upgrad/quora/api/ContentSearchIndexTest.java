@@ -0,0 +1,48 @@
+package com.upgrad.quora.api;
+
+import com.upgrad.quora.service.business.ContentSearchIndex;
+import com.upgrad.quora.service.common.Bm25Index;
+import com.upgrad.quora.service.common.SearchCursor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Builds a new {@link ContentSearchIndex} the way the application does at startup, reading the rows of the fixture
+ * tables, and searches what it loaded.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class ContentSearchIndexTest {
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    //This test case passes when the index loads the answers already in the answer table and finds the fixture answer by its text.
+    @Test
+    public void loadAnswersFromDatabase() {
+        ContentSearchIndex index = beanFactory.createBean(ContentSearchIndex.class);
+        List<SearchCursor> hits = index.searchAnswers(Bm25Index.queryTerms("my_answer", 16), null, 100);
+        List<Integer> ids = hits.stream().map(SearchCursor::getId).collect(Collectors.toList());
+        assertTrue(ids.toString(), ids.contains(1024));
+    }
+
+    //This test case passes when the index loads the questions already in the question table and finds the fixture question by its content.
+    @Test
+    public void loadQuestionsFromDatabase() {
+        ContentSearchIndex index = beanFactory.createBean(ContentSearchIndex.class);
+        List<SearchCursor> hits = index.searchQuestions(Bm25Index.queryTerms("database_question_content", 16), null, 100);
+        List<Integer> ids = hits.stream().map(SearchCursor::getId).collect(Collectors.toList());
+        assertTrue(ids.toString(), ids.contains(1024));
+    }
+}
@@ -0,0 +1,73 @@
+package com.upgrad.quora.api;
+
+import com.upgrad.quora.service.common.TimeOrderedUuidGenerator;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Inserts 5,000,000 rows keyed by {@link UUID#randomUUID()} and then by {@link TimeOrderedUuidGenerator} into a
+ * scratch table with a uuid primary key, logging the rows per second of every million and the size the primary key
+ * reached. Random keys land on any leaf of the index, so their rate drops once it outgrows shared_buffers, while
+ * time-ordered keys keep appending to the rightmost leaf and leave its pages full.
+ *
+ * <p>Size shared_buffers well below the index for the effect to show, and run it with the benchmark profile:
+ * mvn test -pl quora-api -Pbenchmark -Dtest=IdGeneratorBenchmark. The table is dropped with the rollback.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class IdGeneratorBenchmark {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IdGeneratorBenchmark.class);
+
+    private static final int ROWS = 5_000_000;
+
+    private static final int REPORT_EVERY = 1_000_000;
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void compareGenerators() {
+        run("random", UUID::randomUUID);
+        run("time-ordered", new TimeOrderedUuidGenerator()::next);
+    }
+
+    private void run(String generator, Supplier<UUID> ids) {
+        jdbcTemplate.execute("drop table if exists id_benchmark");
+        jdbcTemplate.execute("create table id_benchmark(uuid uuid primary key, content varchar(200) not null)");
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        long start = System.nanoTime();
+        for (int i = 1; i <= ROWS; i++) {
+            batch.add(new Object[] {ids.get(), "benchmark content " + i});
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate("insert into id_benchmark(uuid, content) values (?, ?)", batch);
+                batch.clear();
+            }
+            if (i % REPORT_EVERY == 0) {
+                long elapsed = System.nanoTime() - start;
+                LOG.info(String.format("%-12s rows %,10d  %,10.0f rows/s", generator, i, REPORT_EVERY / (elapsed / 1e9)));
+                start = System.nanoTime();
+            }
+        }
+        Long indexSize = jdbcTemplate.queryForObject("select pg_relation_size('id_benchmark_pkey')", Long.class);
+        LOG.info(String.format("%-12s primary key index %,d MB", generator, indexSize / (1024 * 1024)));
+    }
+}
@@ -0,0 +1,187 @@
+package com.upgrad.quora.api;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NamedNativeQueries;
+import javax.persistence.NamedNativeQuery;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.metamodel.EntityType;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs EXPLAIN on the SQL of every named query of the entities against tables seeded with enough
+ * rows that PostgreSQL only scans a whole table when no index serves the query, and fails on any
+ * such sequential scan. The rows are inserted in the test transaction and rolled back afterwards.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class NamedQueryPlanTest {
+
+    private static final Pattern SEQUENTIAL_SCAN = Pattern.compile("Seq Scan on (users|user_auth|question|answer)\\b");
+
+    // Read every row by design, for the indexes built at startup
+    private static final List<String> FULL_SCANS = Arrays.asList("streamAllQuestions", "streamAnswerContents", "streamUserNamesAndEmails");
+
+    // Always run with a page size, without it the whole table is the result
+    private static final List<String> PAGINATED = Arrays.asList("getQuestionsFirstPage", "getQuestionsAfter", "searchQuestions", "searchAnswers");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Before
+    public void seed() {
+        jdbcTemplate.update("insert into users(uuid, firstname, lastname, username, email, password, salt)"
+                + " select md5('seed_user_' || g)::uuid, 'first', 'last', 'seed_user_' || g, 'seed_user_' || g || '@quora', 'password', 'salt'"
+                + " from generate_series(1, 20000) g");
+        jdbcTemplate.update("insert into user_auth(uuid, user_id, access_token, access_token_digest, expires_at, login_at)"
+                + " select md5('seed_auth_' || g)::uuid, u.ids[1 + g % 20000], 'token_' || g, decode(md5('token_' || g), 'hex'), now() + interval '8 hours', now()"
+                + " from generate_series(1, 50000) g, (select array_agg(id) ids from users where username like 'seed_user_%') u");
+        jdbcTemplate.update("insert into question(uuid, content, date, user_id)"
+                + " select md5('seed_question_' || g)::uuid, 'seed question ' || g, now() - g * interval '1 minute', u.ids[1 + g % 20000]"
+                + " from generate_series(1, 50000) g, (select array_agg(id) ids from users where username like 'seed_user_%') u");
+        jdbcTemplate.update("insert into answer(uuid, ans, date, user_id, question_id)"
+                + " select md5('seed_answer_' || g)::uuid, 'seed answer ' || g, now(), u.ids[1 + g % 20000], q.ids[1 + g % 50000]"
+                + " from generate_series(1, 100000) g, (select array_agg(id) ids from users where username like 'seed_user_%') u,"
+                + " (select array_agg(id) ids from question where content like 'seed question %') q");
+        jdbcTemplate.execute("analyze users, user_auth, question, answer");
+    }
+
+    @Test
+    public void namedQueriesUseIndexes() {
+        Map<String, String> queries = namedQueries();
+        assertTrue(queries.containsKey("getAnswerById"));
+
+        List<String> sequentialScans = new ArrayList<>();
+        for (Map.Entry<String, String> query : queries.entrySet()) {
+            if (FULL_SCANS.contains(query.getKey())) {
+                continue;
+            }
+            String sql = PAGINATED.contains(query.getKey()) ? query.getValue() + " limit 21" : query.getValue();
+            String plan = explain(sql);
+            if (SEQUENTIAL_SCAN.matcher(plan).find()) {
+                sequentialScans.add(query.getKey() + ":\n" + plan);
+            }
+        }
+        assertFalse(String.join("\n\n", sequentialScans), !sequentialScans.isEmpty());
+    }
+
+    //This test case passes when the date of the last question seeds the index range scan of the next page instead of only filtering the rows the scan returns
+    @Test
+    public void questionsAfterSeedIndexRange() {
+        String plan = explain(namedQueries().get("getQuestionsAfter") + " limit 21");
+        assertTrue(plan, Pattern.compile("Index Cond: .*date.*<=").matcher(plan).find());
+    }
+
+    /** SQL of the named queries by name, JPQL translated by Hibernate and native parameters made positional. */
+    private Map<String, String> namedQueries() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        Map<String, String> queries = new LinkedHashMap<>();
+        for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+            Class<?> type = entity.getJavaType();
+            List<NamedQuery> named = new ArrayList<>();
+            if (type.getAnnotation(NamedQueries.class) != null) {
+                named.addAll(Arrays.asList(type.getAnnotation(NamedQueries.class).value()));
+            }
+            if (type.getAnnotation(NamedQuery.class) != null) {
+                named.add(type.getAnnotation(NamedQuery.class));
+            }
+            for (NamedQuery query : named) {
+                String[] sql = sessionFactory.getQueryPlanCache()
+                        .getHQLQueryPlan(query.query(), false, Collections.emptyMap()).getSqlStrings();
+                queries.put(query.name(), sql[0]);
+            }
+            List<NamedNativeQuery> nativeNamed = new ArrayList<>();
+            if (type.getAnnotation(NamedNativeQueries.class) != null) {
+                nativeNamed.addAll(Arrays.asList(type.getAnnotation(NamedNativeQueries.class).value()));
+            }
+            if (type.getAnnotation(NamedNativeQuery.class) != null) {
+                nativeNamed.add(type.getAnnotation(NamedNativeQuery.class));
+            }
+            for (NamedNativeQuery query : nativeNamed) {
+                queries.put(query.name(), query.query().replaceAll("(?<!:):\\w+", "?"));
+            }
+        }
+        return queries;
+    }
+
+    /** Plan of the statement with a value of the right type bound to every parameter. */
+    private String explain(String sql) {
+        return jdbcTemplate.execute("explain " + sql, (PreparedStatement statement) -> {
+            ParameterMetaData parameters = statement.getParameterMetaData();
+            for (int i = 1; i <= parameters.getParameterCount(); i++) {
+                statement.setObject(i, sampleValue(parameters.getParameterType(i), sql));
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    plan.append(rows.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        });
+    }
+
+    private static Object sampleValue(int sqlType, String sql) {
+        switch (sqlType) {
+            case Types.VARCHAR:
+            case Types.CHAR:
+            case Types.LONGVARCHAR:
+                return "x";
+            case Types.INTEGER:
+            case Types.SMALLINT:
+                return 1;
+            case Types.BIGINT:
+                return 1L;
+            case Types.TIMESTAMP:
+                return new Timestamp(System.currentTimeMillis());
+            case Types.BINARY:
+            case Types.VARBINARY:
+                return new byte[32];
+            case Types.REAL:
+                return 1.0f;
+            case Types.DOUBLE:
+            case Types.FLOAT:
+                return 1.0d;
+            case Types.OTHER:
+                return UUID.randomUUID();
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return true;
+            default:
+                fail("No sample value of SQL type " + sqlType + " for " + sql);
+                return null;
+        }
+    }
+}
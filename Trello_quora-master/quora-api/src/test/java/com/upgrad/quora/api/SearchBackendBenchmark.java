@@ -0,0 +1,172 @@
+package com.upgrad.quora.api;
+
+import com.upgrad.quora.service.common.Bm25Index;
+import com.upgrad.quora.service.common.QuestionSummary;
+import com.upgrad.quora.service.common.SearchCursor;
+import com.upgrad.quora.service.common.SearchHit;
+import com.upgrad.quora.service.dao.QuestionDao;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Times /question/search on both backends over 200,000 synthetic questions whose words follow a Zipf distribution, as
+ * the words of real text do. Each backend is timed the way SearchService runs it: the memory backend pays for reading
+ * every question into its index once and then for loading the questions of its hits, the database backend reads the
+ * ranked questions with one query. The two rank differently, and the tsvector columns stem words and drop stopwords,
+ * so their results are compared by how many of the first page they share rather than for equality.
+ *
+ * <p>Needs sql/upgrade/005_search_tsvector.sql applied and runs with the benchmark profile:
+ * mvn test -pl quora-api -Pbenchmark -Dtest=SearchBackendBenchmark. The questions are rolled back afterwards.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class SearchBackendBenchmark {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SearchBackendBenchmark.class);
+
+    private static final int QUESTIONS = 200_000;
+
+    private static final int VOCABULARY = 20_000;
+
+    private static final int QUERIES = 500;
+
+    private static final int WARM_UP_QUERIES = 50;
+
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private QuestionDao questionDao;
+
+    @Test
+    public void compareBackends() {
+        Integer generated = jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.columns where table_name = 'question' and column_name = 'content_tsv'", Integer.class);
+        assumeTrue("sql/upgrade/005_search_tsvector.sql has not been applied", generated != null && generated > 0);
+
+        Random random = new Random(42);
+        double[] cumulative = zipf(VOCABULARY);
+        Integer userId = jdbcTemplate.queryForObject("select min(id) from users", Integer.class);
+        Timestamp date = new Timestamp(System.currentTimeMillis());
+
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < QUESTIONS; i++) {
+            String content = sentence(random, cumulative, 6 + random.nextInt(20));
+            batch.add(new Object[] {UUID.randomUUID(), content, date, userId});
+            if (batch.size() == 1000) {
+                insert(batch);
+            }
+        }
+        insert(batch);
+        jdbcTemplate.execute("analyze question");
+
+        // The memory backend reads every question through the same cursor as at startup before it answers anything
+        long start = System.nanoTime();
+        Bm25Index index = new Bm25Index();
+        questionDao.streamAllQuestions(question -> index.put(question.getId(), question.getContent()));
+        LOG.info("memory   index load of {} questions {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+
+        List<List<String>> queries = new ArrayList<>();
+        for (int i = 0; i < WARM_UP_QUERIES + QUERIES; i++) {
+            queries.add(Bm25Index.queryTerms(sentence(random, cumulative, 1 + random.nextInt(3)), 16));
+        }
+        for (List<String> terms : queries.subList(0, WARM_UP_QUERIES)) {
+            searchMemory(index, terms);
+            searchDatabase(terms);
+        }
+
+        long[] memory = new long[QUERIES];
+        long[] database = new long[QUERIES];
+        double overlap = 0;
+        int compared = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            List<String> terms = queries.get(WARM_UP_QUERIES + i);
+            start = System.nanoTime();
+            List<Integer> memoryIds = searchMemory(index, terms);
+            memory[i] = System.nanoTime() - start;
+            start = System.nanoTime();
+            List<Integer> databaseIds = searchDatabase(terms);
+            database[i] = System.nanoTime() - start;
+
+            if (!memoryIds.isEmpty() || !databaseIds.isEmpty()) {
+                Set<Integer> shared = new HashSet<>(memoryIds);
+                shared.retainAll(databaseIds);
+                overlap += (double) shared.size() / Math.max(memoryIds.size(), databaseIds.size());
+                compared++;
+            }
+        }
+        report("memory", memory);
+        report("database", database);
+        LOG.info("first pages share {}% of their questions on average over {} queries", Math.round(100 * overlap / Math.max(compared, 1)), compared);
+    }
+
+    /** Ids of the first page as SearchService gets them from the memory backend: ranked hits, then their questions. */
+    private List<Integer> searchMemory(Bm25Index index, List<String> terms) {
+        List<Integer> ids = index.search(terms, null, PAGE_SIZE + 1).stream().limit(PAGE_SIZE).map(SearchCursor::getId).collect(Collectors.toList());
+        return questionDao.getQuestionsByIds(ids).stream().map(QuestionSummary::getId).collect(Collectors.toList());
+    }
+
+    /** Ids of the first page as SearchService gets them from the database backend. */
+    private List<Integer> searchDatabase(List<String> terms) {
+        List<SearchHit<QuestionSummary>> hits = questionDao.searchQuestions(terms, null, PAGE_SIZE + 1);
+        return hits.stream().limit(PAGE_SIZE).map(hit -> hit.getItem().getId()).collect(Collectors.toList());
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("insert into question(uuid, content, date, user_id) values (?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+
+    private static double[] zipf(int size) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 1; rank <= size; rank++) {
+            sum += 1.0 / rank;
+            cumulative[rank - 1] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static String sentence(Random random, double[] cumulative, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+            sentence.append(" w").append(rank < 0 ? -rank - 1 : rank);
+        }
+        return sentence.toString().trim();
+    }
+
+    private static void report(String backend, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        LOG.info(String.format("%-8s query p50 %8.3f ms  p95 %8.3f ms  p99 %8.3f ms", backend,
+                sorted[sorted.length / 2] / 1e6, sorted[sorted.length * 95 / 100] / 1e6, sorted[sorted.length * 99 / 100] / 1e6));
+    }
+}
@@ -0,0 +1,43 @@
+package com.upgrad.quora.api;
+
+import com.upgrad.quora.service.business.UserAvailabilityIndex;
+import com.upgrad.quora.service.entity.UserEntity;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Builds a {@link UserAvailabilityIndex} sized for a handful of users from the fixture users table, so that the values
+ * of different users share most of the counters of its filters.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class UserAvailabilityIndexTest {
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    //This test case passes when deleting users whose username and email were never added to the filters, such as users who signed up on another instance, leaves an existing username and email reported as taken.
+    @Test
+    public void deleteUsersAbsentFromFilters() {
+        UserAvailabilityIndex index = new UserAvailabilityIndex(true, 16);
+        beanFactory.autowireBean(index);
+        index.rebuild();
+
+        for (int i = 0; i < 500; i++) {
+            UserEntity user = new UserEntity();
+            user.setUserName("other_instance_username_" + i);
+            user.setEmail("other_instance_email_" + i);
+            index.userDeleted(user);
+        }
+        assertFalse(index.isUserNameAvailable("database_username"));
+        assertFalse(index.isEmailAvailable("database_email"));
+    }
+}
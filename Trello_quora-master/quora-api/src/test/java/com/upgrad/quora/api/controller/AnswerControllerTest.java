@@ -1,21 +1,30 @@
 package com.upgrad.quora.api.controller;
 
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.Assert.assertEquals;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest
+@ActiveProfiles("test")
 @AutoConfigureMockMvc
 
 public class AnswerControllerTest {
@@ -23,6 +32,17 @@ public class AnswerControllerTest {
     @Autowired
     private MockMvc mvc;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // The answers created by the requests are committed, so they are removed for the next runs to see the fixture answers only
+    @After
+    public void deleteCreatedAnswers() {
+        jdbcTemplate.update("delete from answer where ans in ('another_answer', 'bulk_answer')");
+    }
 
     //This test case passes when you try to create the answer but the JWT token entered does not exist in the database.
     @Test
@@ -136,5 +156,62 @@ public class AnswerControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("QUES-001"));
     }
 
+    //This test case passes when getting all the answers to a question issues the same number of SQL statements however many answers the question has.
+    @Test
+    public void getAllAnswersToQuestionWithConstantStatementCount() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        try {
+            // The first request may load the session into the cache, so it is not measured
+            mvc.perform(MockMvcRequestBuilders.get("/answer/all/database_question_uuid").header("authorization", "database_accesstoken"))
+                    .andExpect(status().isOk());
+            statistics.clear();
+            mvc.perform(MockMvcRequestBuilders.get("/answer/all/database_question_uuid").header("authorization", "database_accesstoken"))
+                    .andExpect(status().isOk());
+            long statementCount = statistics.getPrepareStatementCount();
+
+            for (int i = 0; i < 3; i++) {
+                mvc.perform(MockMvcRequestBuilders.post("/question/database_question_uuid/answer/create?answer=another_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken"))
+                        .andExpect(status().isCreated());
+            }
+            statistics.clear();
+            mvc.perform(MockMvcRequestBuilders.get("/answer/all/database_question_uuid").header("authorization", "database_accesstoken"))
+                    .andExpect(status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$[3].questionContent").value("database_question_content"));
+            assertEquals(statementCount, statistics.getPrepareStatementCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    //This test case passes when a question is addressed both by its uuid and by the id it was inserted with, which maps to that uuid.
+    @Test
+    public void getAllAnswersToQuestionByUuidOrLegacyId() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/answer/all/618ff8ec-bd2c-3aa9-8261-659451b70d9c").header("authorization", "database_accesstoken"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value("c8b764d1-6136-3af7-83d2-3cb78f57d3cd"));
+        mvc.perform(MockMvcRequestBuilders.get("/answer/all/database_question_uuid").header("authorization", "database_accesstoken"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value("c8b764d1-6136-3af7-83d2-3cb78f57d3cd"));
+    }
+
+    //This test case passes when you search the answers by the words of their text.
+    @Test
+    public void searchAnswers() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/answer/search?query=my answer").header("authorization", "database_accesstoken"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[?(@.id == 'c8b764d1-6136-3af7-83d2-3cb78f57d3cd')].questionContent").value("database_question_content"));
+    }
+
+    //This test case passes when you create several answers with one request and the answers to non existing questions are reported without failing the others.
+    @Test
+    public void createAnswersInBulk() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post("/answer/create/bulk").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken")
+                .content("[{\"questionId\":\"database_question_uuid\",\"answer\":\"bulk_answer\"},{\"questionId\":\"non_existing_question_uuid\",\"answer\":\"bulk_answer\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("ANSWER CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status").value("FAILED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].code").value("QUES-001"));
+    }
 
-}
\ No newline at end of file
+}
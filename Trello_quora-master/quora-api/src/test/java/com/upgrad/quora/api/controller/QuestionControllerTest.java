@@ -1,21 +1,28 @@
 package com.upgrad.quora.api.controller;
 
 
+import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest
+@ActiveProfiles("test")
 @AutoConfigureMockMvc
 
 public class QuestionControllerTest {
@@ -23,6 +30,14 @@ public class QuestionControllerTest {
     @Autowired
     private MockMvc mvc;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // The questions created by the requests are committed, so they are removed for the next runs to see the fixture questions only
+    @After
+    public void deleteCreatedQuestions() {
+        jdbcTemplate.update("delete from question where content in ('listed_question', 'bulk_question_1', 'bulk_question_2')");
+    }
 
     //This test case passes when you try to create the question but the JWT token entered does not exist in the database.
     @Test
@@ -40,6 +55,26 @@ public class QuestionControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
     }
 
+    //This test case passes when you create several questions with one request and the invalid ones are reported without failing the others.
+    @Test
+    public void createQuestionsInBulk() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post("/question/create/bulk").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken1")
+                .content("[{\"content\":\"bulk_question_1\"},{\"content\":\"\"},{\"content\":\"bulk_question_2\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("QUESTION CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status").value("FAILED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].code").value("QUES-002"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[2].status").value("QUESTION CREATED"));
+    }
+
+    //This test case passes when you try to create questions in bulk with an empty list.
+    @Test
+    public void createQuestionsInBulkWithoutQuestions() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post("/question/create/bulk").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken1").content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("REQ-001"));
+    }
+
     //This test case passes when you try to get the detail of all the questions and the JWT token entered exists in the database and the user corresponding to that JWT token is signed in.
     @Test
     public void getAllQuestions() throws Exception {
@@ -47,6 +82,53 @@ public class QuestionControllerTest {
                 .andExpect(status().isOk());
     }
 
+    //This test case passes when you stream all the questions and the JWT token entered exists in the database.
+    @Test
+    public void streamAllQuestions() throws Exception {
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/question/all?stream=true").header("authorization", "database_accesstoken1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[?(@.id == '618ff8ec-bd2c-3aa9-8261-659451b70d9c')]").exists());
+    }
+
+    //This test case passes when a question created after all the questions were listed shows up in the next listing.
+    @Test
+    public void getAllQuestionsAfterCreatingQuestion() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/all").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isOk());
+        mvc.perform(MockMvcRequestBuilders.post("/question/create?content=listed_question").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken1"))
+                .andExpect(status().isOk());
+        mvc.perform(MockMvcRequestBuilders.get("/question/all").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].content").value("listed_question"));
+    }
+
+    //This test case passes when you search the questions with words of the content of an existing question and it is returned.
+    @Test
+    public void searchQuestions() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/search?query=database question content").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[?(@.id == '618ff8ec-bd2c-3aa9-8261-659451b70d9c')]").exists());
+    }
+
+    //This test case passes when you search the questions with a query that has no words.
+    @Test
+    public void searchQuestionsWithoutWords() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/search?query=?!").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("REQ-001"));
+    }
+
+    //This test case passes when you try to get a page of questions with a cursor that was not returned by the server.
+    @Test
+    public void getAllQuestionsWithInvalidCursor() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/all?cursor=not_a_cursor").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("REQ-001"));
+    }
+
     //This test case passes when you try to get the detail of all the questions but the JWT token entered does not exist in the database.
     @Test
     public void getAllQuestionsWithNonExistingAccessToken() throws Exception {
@@ -6,15 +6,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.util.Base64;
+
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest
+@ActiveProfiles("test")
 @AutoConfigureMockMvc
 public class UserControllerTest {
 
@@ -37,6 +41,32 @@ public class UserControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("SGR-002"));
     }
 
+    //This test case passes when the availability check reports a username and an email that exist in the database as taken.
+    @Test
+    public void checkAvailabilityOfExistingUserNameAndEmail() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/user/available?userName=database_username&emailAddress=database_email"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("userNameAvailable").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("emailAddressAvailable").value(false));
+    }
+
+    //This test case passes when the availability check reports a username that does not exist in the database as available.
+    @Test
+    public void checkAvailabilityOfNonExistingUserName() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/user/available?userName=non_existing_username"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("userNameAvailable").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("emailAddressAvailable").doesNotExist());
+    }
+
+    //This test case passes when you check availability without a username or an email.
+    @Test
+    public void checkAvailabilityWithoutUserNameOrEmail() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/user/available"))
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("REQ-001"));
+    }
+
 
     //This test case passes when you try to signout but the JWT token entered does not exist in the database.
     @Test
@@ -45,4 +75,17 @@ public class UserControllerTest {
                 .andExpect(status().isUnauthorized())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("SGR-001"));
     }
-}
\ No newline at end of file
+
+    //This test case passes when repeated signin attempts for one username are throttled before the password is checked.
+    @Test
+    public void signinThrottledAfterRepeatedAttempts() throws Exception {
+        String authorization = "Basic " + Base64.getEncoder().encodeToString("throttled_username:wrong_password".getBytes());
+        for (int attempt = 0; attempt < 10; attempt++) {
+            mvc.perform(MockMvcRequestBuilders.post("/user/signin").header("authorization", authorization))
+                    .andExpect(status().isUnauthorized());
+        }
+        mvc.perform(MockMvcRequestBuilders.post("/user/signin").header("authorization", authorization))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATH-003"));
+    }
+}
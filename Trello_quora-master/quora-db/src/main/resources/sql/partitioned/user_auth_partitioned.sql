@@ -0,0 +1,97 @@
+--Optional layout of USER_AUTH as a table partitioned by month of EXPIRES_AT (PostgreSQL 11 or later).
+--Sessions of a month are removed by dropping its partition instead of deleting rows one by one.
+--Run it on a database set up with quora.sql, then start the application with
+--quora.auth.session-sweeper.layout=partitioned so that the sweeper maintains the partitions.
+--Statements are separated by lines holding a single "/" because the functions contain semicolons.
+ALTER TABLE USER_AUTH RENAME TO USER_AUTH_UNPARTITIONED
+/
+ALTER SEQUENCE USER_AUTH_ID_SEQ OWNED BY NONE
+/
+--Renaming the table keeps the names of its indexes, which the partitioned table needs
+ALTER INDEX IF EXISTS USER_AUTH_PKEY RENAME TO USER_AUTH_UNPARTITIONED_PKEY
+/
+DROP INDEX IF EXISTS USER_AUTH_ACCESS_TOKEN_DIGEST_IDX
+/
+DROP INDEX IF EXISTS USER_AUTH_EXPIRES_AT_IDX
+/
+DROP INDEX IF EXISTS USER_AUTH_LOGOUT_AT_IDX
+/
+DROP INDEX IF EXISTS USER_AUTH_USER_ID_IDX
+/
+--The partition key has to be part of every unique constraint, hence ID and ACCESS_TOKEN_DIGEST are
+--only unique together with EXPIRES_AT
+CREATE TABLE USER_AUTH(
+	ID BIGINT NOT NULL DEFAULT nextval('user_auth_id_seq'),
+	uuid UUID NOT NULL,
+	USER_ID INTEGER NOT NULL,
+	ACCESS_TOKEN VARCHAR(500) NOT NULL,
+	ACCESS_TOKEN_DIGEST BYTEA NOT NULL,
+	EXPIRES_AT TIMESTAMP NOT NULL,
+	LOGIN_AT TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+	LOGOUT_AT TIMESTAMP NULL,
+	PRIMARY KEY (ID, EXPIRES_AT)
+) PARTITION BY RANGE (EXPIRES_AT)
+/
+ALTER SEQUENCE USER_AUTH_ID_SEQ OWNED BY USER_AUTH.ID
+/
+ALTER TABLE USER_AUTH ADD CONSTRAINT FK_USER_AUTH_USER_ID FOREIGN KEY(USER_ID) REFERENCES USERS(ID) ON DELETE CASCADE
+/
+CREATE UNIQUE INDEX USER_AUTH_ACCESS_TOKEN_DIGEST_IDX ON USER_AUTH(ACCESS_TOKEN_DIGEST, EXPIRES_AT)
+/
+CREATE INDEX USER_AUTH_EXPIRES_AT_IDX ON USER_AUTH(EXPIRES_AT)
+/
+CREATE INDEX USER_AUTH_LOGOUT_AT_IDX ON USER_AUTH(LOGOUT_AT) WHERE LOGOUT_AT IS NOT NULL
+/
+CREATE INDEX USER_AUTH_USER_ID_IDX ON USER_AUTH(USER_ID)
+/
+--Holds sessions outside of the monthly partitions; it is only emptied by the row-by-row sweep
+CREATE TABLE USER_AUTH_DEFAULT PARTITION OF USER_AUTH DEFAULT
+/
+--Creates the monthly partitions from the current month up to months_ahead months from now
+CREATE OR REPLACE FUNCTION create_user_auth_partitions(months_ahead INTEGER) RETURNS INTEGER AS $$
+DECLARE
+	month_start DATE;
+	partition_name TEXT;
+	created INTEGER := 0;
+BEGIN
+	FOR i IN 0..months_ahead LOOP
+		month_start := (date_trunc('month', now()) + make_interval(months => i))::DATE;
+		partition_name := 'user_auth_' || to_char(month_start, 'YYYYMM');
+		IF to_regclass(partition_name) IS NULL THEN
+			EXECUTE format('CREATE TABLE %I PARTITION OF user_auth FOR VALUES FROM (%L) TO (%L)',
+				partition_name, month_start, (month_start + INTERVAL '1 month')::DATE);
+			created := created + 1;
+		END IF;
+	END LOOP;
+	RETURN created;
+END;
+$$ LANGUAGE plpgsql
+/
+--Drops the monthly partitions whose whole range lies before the cutoff
+CREATE OR REPLACE FUNCTION drop_expired_user_auth_partitions(cutoff TIMESTAMP) RETURNS INTEGER AS $$
+DECLARE
+	partition_name TEXT;
+	dropped INTEGER := 0;
+BEGIN
+	FOR partition_name IN
+		SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+		WHERE i.inhparent = 'user_auth'::REGCLASS AND c.relname ~ '^user_auth_[0-9]{6}$'
+	LOOP
+		IF to_date(substring(partition_name FROM 11), 'YYYYMM') + INTERVAL '1 month' <= cutoff THEN
+			EXECUTE format('DROP TABLE %I', partition_name);
+			dropped := dropped + 1;
+		END IF;
+	END LOOP;
+	RETURN dropped;
+END;
+$$ LANGUAGE plpgsql
+/
+SELECT create_user_auth_partitions(2)
+/
+--Columns are listed because their order differs in databases upgraded through upgrade/001, which
+--appended ACCESS_TOKEN_DIGEST
+INSERT INTO USER_AUTH(ID, uuid, USER_ID, ACCESS_TOKEN, ACCESS_TOKEN_DIGEST, EXPIRES_AT, LOGIN_AT, LOGOUT_AT)
+SELECT ID, uuid, USER_ID, ACCESS_TOKEN, ACCESS_TOKEN_DIGEST, EXPIRES_AT, LOGIN_AT, LOGOUT_AT FROM USER_AUTH_UNPARTITIONED
+/
+DROP TABLE USER_AUTH_UNPARTITIONED
+/
@@ -1,30 +1,88 @@
 
+--The schema uses generated columns, which need PostgreSQL 12 or later. On an older server the cast of the message
+--below fails and stops the script before any table is dropped
+SELECT CASE WHEN current_setting('server_version_num')::INTEGER < 120000 THEN ('PostgreSQL 12 or later is required, the server runs ' || version())::INTEGER END;
+
 --USERS table is created to store the details of all the users
 DROP TABLE IF EXISTS USERS CASCADE;
-CREATE TABLE IF NOT EXISTS USERS(id SERIAL, uuid VARCHAR(200) NOT NULL ,firstName VARCHAR(30) NOT NULL , lastName VARCHAR(30) NOT NULL ,userName VARCHAR(30) UNIQUE NOT NULL,  email VARCHAR(50) UNIQUE NOT NULL ,password VARCHAR(255) NOT NULL, salt VARCHAR(200) NOT NULL ,country VARCHAR(30) ,aboutMe VARCHAR(50),dob VARCHAR(30), role VARCHAR(30),contactNumber VARCHAR(30), PRIMARY KEY (id));
+CREATE TABLE IF NOT EXISTS USERS(id SERIAL, uuid UUID NOT NULL ,firstName VARCHAR(30) NOT NULL , lastName VARCHAR(30) NOT NULL ,userName VARCHAR(30) UNIQUE NOT NULL,  email VARCHAR(50) UNIQUE NOT NULL ,password VARCHAR(255) NOT NULL, salt VARCHAR(200) NOT NULL ,hash_iterations INTEGER NULL ,hash_key_length INTEGER NULL ,country VARCHAR(30) ,aboutMe VARCHAR(50),dob VARCHAR(30), role VARCHAR(30),contactNumber VARCHAR(30), PRIMARY KEY (id));
 INSERT INTO users(
 	id, uuid, firstname, lastname, username, email, password, salt, country, aboutme, dob, role, contactnumber)
-	VALUES (1024,'rdtrdtdyt','Abhi','Mahajan','abhi','a@gmail.com','507FF5FED1CAC746','8Xt6jxoCI3MWsVaKY/1ySAp2qzlb2Z7P89+vDrb1o6U=', 'India' ,'I am @ UpGrad' ,'22-10-1995' , 'admin' , '1222333333' );
+	VALUES (1024,'073106b8-7f67-34a4-9e75-3c1f004fdef2','Abhi','Mahajan','abhi','a@gmail.com','507FF5FED1CAC746','8Xt6jxoCI3MWsVaKY/1ySAp2qzlb2Z7P89+vDrb1o6U=', 'India' ,'I am @ UpGrad' ,'22-10-1995' , 'admin' , '1222333333' );
+
+--Ids are drawn by Hibernate in blocks of 50 (pooled optimizer), so inserts need no round trip per row and can be batched.
+--Rows inserted with plain SQL still take their id from the column default
+ALTER SEQUENCE USERS_ID_SEQ INCREMENT BY 50;
+
+--Users are looked up by uuid
+CREATE UNIQUE INDEX USERS_UUID_IDX ON USERS(uuid);
 
 --USER_AUTH table is created to store the login information of all the users
 DROP TABLE IF EXISTS USER_AUTH CASCADE;
 CREATE TABLE IF NOT EXISTS USER_AUTH(
 	ID BIGSERIAL PRIMARY KEY,
-	uuid VARCHAR(200) NOT NULL,
+	uuid UUID NOT NULL,
 	USER_ID INTEGER NOT NULL,
 	ACCESS_TOKEN VARCHAR(500) NOT NULL,
+	ACCESS_TOKEN_DIGEST BYTEA NOT NULL,
 	EXPIRES_AT TIMESTAMP NOT NULL,
 	LOGIN_AT TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
 	LOGOUT_AT TIMESTAMP NULL
 );
 
+ALTER SEQUENCE USER_AUTH_ID_SEQ INCREMENT BY 50;
+
 ALTER TABLE USER_AUTH ADD CONSTRAINT FK_USER_AUTH_USER_ID FOREIGN KEY(USER_ID) REFERENCES USERS(ID) ON DELETE CASCADE ;
 
+--Sessions are looked up by the SHA-256 digest of the access token rather than the token itself
+CREATE UNIQUE INDEX USER_AUTH_ACCESS_TOKEN_DIGEST_IDX ON USER_AUTH(ACCESS_TOKEN_DIGEST);
+
+--Used by the expired session sweeper to find the rows it deletes
+CREATE INDEX USER_AUTH_EXPIRES_AT_IDX ON USER_AUTH(EXPIRES_AT);
+CREATE INDEX USER_AUTH_LOGOUT_AT_IDX ON USER_AUTH(LOGOUT_AT) WHERE LOGOUT_AT IS NOT NULL;
+
+--Used when the sessions of a deleted user are removed
+CREATE INDEX USER_AUTH_USER_ID_IDX ON USER_AUTH(USER_ID);
+
+--REVOKED_USERS records the users deleted while their access tokens may still be valid, for stateless token verification
+DROP TABLE IF EXISTS REVOKED_USERS CASCADE;
+CREATE TABLE IF NOT EXISTS REVOKED_USERS(USER_UUID UUID PRIMARY KEY, EXPIRES_AT TIMESTAMP NOT NULL);
+CREATE INDEX REVOKED_USERS_EXPIRES_AT_IDX ON REVOKED_USERS(EXPIRES_AT);
+
 --QUESTION table is created to store the questions related information posted by any user in the Application
 DROP TABLE IF EXISTS QUESTION CASCADE;
-CREATE TABLE IF NOT EXISTS QUESTION(id SERIAL,uuid VARCHAR(200) NOT NULL, content VARCHAR(500) NOT NULL, date TIMESTAMP NOT NULL , user_id INTEGER NOT NULL, PRIMARY KEY(id), FOREIGN KEY (user_id) REFERENCES USERS(id) ON DELETE CASCADE);
+CREATE TABLE IF NOT EXISTS QUESTION(id SERIAL,uuid UUID NOT NULL, content VARCHAR(500) NOT NULL, date TIMESTAMP NOT NULL , user_id INTEGER NOT NULL, PRIMARY KEY(id), FOREIGN KEY (user_id) REFERENCES USERS(id) ON DELETE CASCADE);
+ALTER SEQUENCE QUESTION_ID_SEQ INCREMENT BY 50;
+
+--Questions are looked up by uuid and listed by user
+CREATE UNIQUE INDEX QUESTION_UUID_IDX ON QUESTION(uuid);
+CREATE INDEX QUESTION_USER_ID_IDX ON QUESTION(user_id);
+
+--Serves the newest-first, keyset paginated listing of all questions
+CREATE INDEX QUESTION_DATE_ID_IDX ON QUESTION(date DESC, id DESC);
+
+--Serves /question/search when quora.search.backend is database (generated columns need PostgreSQL 12 or later)
+ALTER TABLE QUESTION ADD COLUMN content_tsv TSVECTOR GENERATED ALWAYS AS (to_tsvector('english', content)) STORED;
+CREATE INDEX QUESTION_CONTENT_TSV_IDX ON QUESTION USING GIN(content_tsv);
 
 
 --ANSWER table is created to store the answers related information in reply to any question posted in the Application
 DROP TABLE IF EXISTS ANSWER CASCADE;
-CREATE TABLE IF NOT EXISTS ANSWER(id SERIAL,uuid VARCHAR(200) NOT NULL, ans VARCHAR(255) NOT NULL,date TIMESTAMP NOT NULL , user_id INTEGER NOT NULL, question_id INTEGER NOT NULL , PRIMARY KEY(id), FOREIGN KEY (user_id) REFERENCES USERS(id) ON DELETE CASCADE, FOREIGN KEY (question_id) REFERENCES QUESTION(id) ON DELETE CASCADE);
+CREATE TABLE IF NOT EXISTS ANSWER(id SERIAL,uuid UUID NOT NULL, ans VARCHAR(255) NOT NULL,date TIMESTAMP NOT NULL , user_id INTEGER NOT NULL, question_id INTEGER NOT NULL , PRIMARY KEY(id), FOREIGN KEY (user_id) REFERENCES USERS(id) ON DELETE CASCADE, FOREIGN KEY (question_id) REFERENCES QUESTION(id) ON DELETE CASCADE);
+ALTER SEQUENCE ANSWER_ID_SEQ INCREMENT BY 50;
+
+--Answers are looked up by uuid and listed by question and by user
+CREATE UNIQUE INDEX ANSWER_UUID_IDX ON ANSWER(uuid);
+CREATE INDEX ANSWER_QUESTION_ID_IDX ON ANSWER(question_id);
+CREATE INDEX ANSWER_USER_ID_IDX ON ANSWER(user_id);
+
+--Serves /answer/search when quora.search.backend is database
+ALTER TABLE ANSWER ADD COLUMN ans_tsv TSVECTOR GENERATED ALWAYS AS (to_tsvector('english', ans)) STORED;
+CREATE INDEX ANSWER_ANS_TSV_IDX ON ANSWER USING GIN(ans_tsv);
+
+
+--SCHEMA_HISTORY records the migration scripts of sql/upgrade applied to the database. This file creates the
+--schema of version 9, recorded as the baseline, so that only the later scripts are applied at startup
+DROP TABLE IF EXISTS SCHEMA_HISTORY CASCADE;
+CREATE TABLE IF NOT EXISTS SCHEMA_HISTORY(VERSION INTEGER PRIMARY KEY, DESCRIPTION VARCHAR(200) NOT NULL, CHECKSUM VARCHAR(64) NULL, INSTALLED_AT TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP);
+INSERT INTO SCHEMA_HISTORY(VERSION, DESCRIPTION, CHECKSUM) VALUES (9, '<< quora.sql baseline >>', NULL);
@@ -0,0 +1,9 @@
+--Stores the SHA-256 digest of every access token in an indexed, fixed-width column so that session
+--lookups no longer scan USER_AUTH comparing VARCHAR(500) tokens
+ALTER TABLE USER_AUTH ADD COLUMN IF NOT EXISTS ACCESS_TOKEN_DIGEST BYTEA;
+
+UPDATE USER_AUTH SET ACCESS_TOKEN_DIGEST = sha256(convert_to(ACCESS_TOKEN, 'UTF8')) WHERE ACCESS_TOKEN_DIGEST IS NULL;
+
+ALTER TABLE USER_AUTH ALTER COLUMN ACCESS_TOKEN_DIGEST SET NOT NULL;
+
+CREATE UNIQUE INDEX IF NOT EXISTS USER_AUTH_ACCESS_TOKEN_DIGEST_IDX ON USER_AUTH(ACCESS_TOKEN_DIGEST);
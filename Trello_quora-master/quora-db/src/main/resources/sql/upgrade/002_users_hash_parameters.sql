@@ -0,0 +1,5 @@
+--Stores the PBKDF2 parameters every password was hashed with. Existing rows keep NULL, which stands
+--for the original 1000 iterations and 64 bit key, and are rehashed on their next signin
+ALTER TABLE USERS ADD COLUMN IF NOT EXISTS HASH_ITERATIONS INTEGER NULL;
+
+ALTER TABLE USERS ADD COLUMN IF NOT EXISTS HASH_KEY_LENGTH INTEGER NULL;
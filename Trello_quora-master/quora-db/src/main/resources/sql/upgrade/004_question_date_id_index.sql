@@ -0,0 +1,2 @@
+--Serves the newest-first, keyset paginated listing of all questions
+CREATE INDEX IF NOT EXISTS QUESTION_DATE_ID_IDX ON QUESTION(date DESC, id DESC);
@@ -0,0 +1,7 @@
+--Full-text search columns and indexes used when quora.search.backend is database. Generated columns need
+--PostgreSQL 12 or later; adding them rewrites both tables
+ALTER TABLE QUESTION ADD COLUMN IF NOT EXISTS content_tsv TSVECTOR GENERATED ALWAYS AS (to_tsvector('english', content)) STORED;
+CREATE INDEX IF NOT EXISTS QUESTION_CONTENT_TSV_IDX ON QUESTION USING GIN(content_tsv);
+
+ALTER TABLE ANSWER ADD COLUMN IF NOT EXISTS ans_tsv TSVECTOR GENERATED ALWAYS AS (to_tsvector('english', ans)) STORED;
+CREATE INDEX IF NOT EXISTS ANSWER_ANS_TSV_IDX ON ANSWER USING GIN(ans_tsv);
@@ -0,0 +1,6 @@
+--Ids are drawn by Hibernate in blocks of 50 (pooled optimizer): each nextval reserves the 50 values ending at the
+--returned one, which never overlap the values already used
+ALTER SEQUENCE USERS_ID_SEQ INCREMENT BY 50;
+ALTER SEQUENCE USER_AUTH_ID_SEQ INCREMENT BY 50;
+ALTER SEQUENCE QUESTION_ID_SEQ INCREMENT BY 50;
+ALTER SEQUENCE ANSWER_ID_SEQ INCREMENT BY 50;
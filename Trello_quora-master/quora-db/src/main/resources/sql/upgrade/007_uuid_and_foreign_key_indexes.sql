@@ -0,0 +1,10 @@
+--Every entity is looked up by its uuid, and the answers and questions of a user or question are
+--found by their foreign keys. Without these indexes each such lookup scans the whole table
+CREATE UNIQUE INDEX IF NOT EXISTS USERS_UUID_IDX ON USERS(uuid);
+CREATE UNIQUE INDEX IF NOT EXISTS QUESTION_UUID_IDX ON QUESTION(uuid);
+CREATE UNIQUE INDEX IF NOT EXISTS ANSWER_UUID_IDX ON ANSWER(uuid);
+
+CREATE INDEX IF NOT EXISTS USER_AUTH_USER_ID_IDX ON USER_AUTH(USER_ID);
+CREATE INDEX IF NOT EXISTS QUESTION_USER_ID_IDX ON QUESTION(user_id);
+CREATE INDEX IF NOT EXISTS ANSWER_QUESTION_ID_IDX ON ANSWER(question_id);
+CREATE INDEX IF NOT EXISTS ANSWER_USER_ID_IDX ON ANSWER(user_id);
@@ -0,0 +1,16 @@
+--Stores the uuid of every row in the native 16 byte UUID type instead of VARCHAR(200), which halves the uuid
+--indexes and compares keys as numbers. An id that is not a uuid, such as that of a row inserted by hand, becomes
+--the name-based uuid of its text, which the application derives from such ids as well
+CREATE FUNCTION pg_temp.to_uuid(id VARCHAR) RETURNS UUID AS 'SELECT CASE
+	WHEN id ~ ''^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$'' THEN id::UUID
+	ELSE encode(set_byte(set_byte(decode(md5(id), ''hex''),
+		6, (get_byte(decode(md5(id), ''hex''), 6) & 15) | 48),
+		8, (get_byte(decode(md5(id), ''hex''), 8) & 63) | 128), ''hex'')::UUID
+	END' LANGUAGE SQL IMMUTABLE;
+
+ALTER TABLE USERS ALTER COLUMN uuid TYPE UUID USING pg_temp.to_uuid(uuid);
+ALTER TABLE USER_AUTH ALTER COLUMN uuid TYPE UUID USING pg_temp.to_uuid(uuid);
+ALTER TABLE QUESTION ALTER COLUMN uuid TYPE UUID USING pg_temp.to_uuid(uuid);
+ALTER TABLE ANSWER ALTER COLUMN uuid TYPE UUID USING pg_temp.to_uuid(uuid);
+
+DROP FUNCTION pg_temp.to_uuid(VARCHAR);
@@ -0,0 +1,5 @@
+--Records the users deleted while their access tokens may still be valid, so that every instance verifying tokens
+--statelessly rejects them, also after a restart. Rows are swept once the tokens they revoke have expired
+CREATE TABLE IF NOT EXISTS REVOKED_USERS(USER_UUID UUID PRIMARY KEY, EXPIRES_AT TIMESTAMP NOT NULL);
+
+CREATE INDEX IF NOT EXISTS REVOKED_USERS_EXPIRES_AT_IDX ON REVOKED_USERS(EXPIRES_AT);
@@ -1,14 +1,31 @@
 package com.upgrad.quora.service;
 
+import org.springframework.boot.autoconfigure.data.jpa.EntityManagerFactoryDependsOnPostProcessor;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Enabling the component scan and entity scan of classes in the below mentioned
- * "com.upgrad.quora.service" and "com.upgrad.quora.service.entity" packages respectively.
+ * "com.upgrad.quora.service" and "com.upgrad.quora.service.entity" packages respectively, and the
+ * scheduled maintenance tasks of the service layer.
  */
 @Configuration
 @ComponentScan("com.upgrad.quora.service")
 @EntityScan("com.upgrad.quora.service.entity")
-public class ServiceConfiguration {}
+@EnableScheduling
+public class ServiceConfiguration {
+
+  /**
+   * Creates the EntityManagerFactory only once the schema migrations have been applied, so that
+   * Hibernate and the caches warmed at startup always see the current schema.
+   */
+  @Configuration
+  static class SchemaMigrationDependency extends EntityManagerFactoryDependsOnPostProcessor {
+
+    SchemaMigrationDependency() {
+      super("schemaMigrator");
+    }
+  }
+}
@@ -1,8 +1,7 @@
 package com.upgrad.quora.service.business;
 
-import com.upgrad.quora.service.dao.UserAuthDao;
+import com.upgrad.quora.service.common.AuthenticatedUser;
 import com.upgrad.quora.service.dao.UserDao;
-import com.upgrad.quora.service.entity.UserAuthEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
@@ -14,32 +13,30 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class AdminService {
 
-  @Autowired private UserAuthDao userAuthDao;
+  @Autowired private UserAuthTokenCache userAuthTokenCache;
 
   @Autowired private UserDao userDao;
+
+  @Autowired private TokenRevocationList tokenRevocationList;
+
+  @Autowired private ResourceVersions resourceVersions;
+
+  @Autowired private ContentSearchIndex contentSearchIndex;
+
+  @Autowired private UserAvailabilityIndex userAvailabilityIndex;
+
   /**
    * Delete user endpoint
    *
    * @param userId : userId of which you want to delete
-   * @param accessToken : access-token for authorization
-   * @throws AuthorizationFailedException : If token is invalid you get authorization failed
-   *     response
+   * @param user : signed in user performing the deletion
+   * @throws AuthorizationFailedException : If the signed in user is not an admin
    * @throws UserNotFoundException : If userid is invalid or not found
    */
   @Transactional(propagation = Propagation.REQUIRED)
-  public UserEntity deleteUser(final String userId, final String accessToken)
+  public UserEntity deleteUser(final String userId, final AuthenticatedUser user)
       throws AuthorizationFailedException, UserNotFoundException {
-    UserAuthEntity userAuthEntity = this.userAuthDao.getUserAuthByToken(accessToken);
-
-    if (userAuthEntity == null) {
-      throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-    }
-
-    if (userAuthEntity.getLogoutAt() != null) {
-      throw new AuthorizationFailedException("ATHR-002", "User is signed out");
-    }
-
-    if (!userAuthEntity.getUserEntity().getRole().equals("admin")) {
+    if (!user.isAdmin()) {
       throw new AuthorizationFailedException(
           "ATHR-003", "Unauthorized Access, Entered user is not an admin");
     }
@@ -51,7 +48,13 @@ public class AdminService {
           "USR-001", "User with entered uuid to be deleted does not exist");
     }
 
+    // Look up the questions and answers deleted with the user before the user is removed
+    this.contentSearchIndex.userDeleted(existingUser);
     UserEntity deletedUser = this.userDao.deleteUser(userId);
+    this.userAuthTokenCache.invalidateUser(existingUser.getUuid());
+    this.tokenRevocationList.revokeUser(existingUser.getUuid().toString());
+    this.resourceVersions.userDeleted(existingUser.getUuid());
+    this.userAvailabilityIndex.userDeleted(existingUser);
     return deletedUser;
   }
 }
@@ -1,125 +1,204 @@
 package com.upgrad.quora.service.business;
 
+import com.upgrad.quora.service.common.AnswerDraft;
+import com.upgrad.quora.service.common.AnswerSummary;
+import com.upgrad.quora.service.common.AuthenticatedUser;
+import com.upgrad.quora.service.common.BulkItemResult;
+import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.ResourceIds;
 import com.upgrad.quora.service.dao.AnswerDao;
 import com.upgrad.quora.service.dao.QuestionDao;
-import com.upgrad.quora.service.dao.UserAuthDao;
+import com.upgrad.quora.service.dao.UserDao;
 import com.upgrad.quora.service.entity.AnswerEntity;
 import com.upgrad.quora.service.entity.QuestionEntity;
-import com.upgrad.quora.service.entity.UserAuthEntity;
 import com.upgrad.quora.service.exception.AnswerNotFoundException;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
+import com.upgrad.quora.service.exception.InvalidRequestParameterException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 public class AnswerService {
 
-  @Autowired private UserAuthDao userAuthDao;
+  /** Length of the ans column of the answer table. */
+  private static final int MAX_ANSWER_LENGTH = 255;
 
   @Autowired private AnswerDao answerDao;
 
   @Autowired private QuestionDao questionDao;
+
+  @Autowired private UserDao userDao;
+
+  @Autowired private ResourceVersions resourceVersions;
+
+  @Autowired private ContentSearchIndex contentSearchIndex;
+
+  @Autowired private BulkInserter bulkInserter;
+
+  @Autowired private IdGenerator idGenerator;
+
   /**
    * Add answer into the database
    *
-   * @param questionId : questionid that you want to answer
    * @param answerEntity : the answer body
-   * @param accessToken : access-token for authentication
-   * @throws AuthorizationFailedException : if authentication is failed
+   * @param user : signed in user posting the answer
+   * @param questionId : questionid that you want to answer
    * @throws InvalidQuestionException : if question id is invalid
    * @return returns created response for the answer
    */
   @Transactional(propagation = Propagation.REQUIRED)
   public AnswerEntity createAnswer(
-      AnswerEntity answerEntity, final String accessToken, final String questionId)
-      throws AuthorizationFailedException, InvalidQuestionException {
-    UserAuthEntity userAuthEntity = userAuthDao.getUserAuthByToken(accessToken);
-    if (userAuthEntity == null) {
-      throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-    } else if (userAuthEntity.getLogoutAt() != null) {
-      throw new AuthorizationFailedException(
-          "ATHR-002", "User is signed out.Sign in first to post an answer");
-    }
+      AnswerEntity answerEntity, final AuthenticatedUser user, final String questionId)
+      throws InvalidQuestionException {
     QuestionEntity questionEntity = questionDao.getQuestionByUuid(questionId);
     if (questionEntity == null) {
       throw new InvalidQuestionException("QUES-001", "The question entered is invalid");
     }
-    answerEntity.setUuid(UUID.randomUUID().toString());
+    answerEntity.setUuid(idGenerator.nextId());
     answerEntity.setDate(ZonedDateTime.now());
     answerEntity.setQuestionEntity(questionEntity);
-    answerEntity.setUserEntity(userAuthEntity.getUserEntity());
-    return answerDao.createAnswer(answerEntity);
+    answerEntity.setUserEntity(userDao.getUserReference(user.getId()));
+    resourceVersions.answersChanged(questionEntity.getUuid());
+    answerEntity = answerDao.createAnswer(answerEntity);
+    contentSearchIndex.answerSaved(answerEntity.getId(), answerEntity.getAnswer());
+    return answerEntity;
+  }
+
+  /**
+   * Add several answers into the database on behalf of the signed in user. The answered questions
+   * are looked up with a single query; answers to unknown questions, and empty or too long
+   * answers, are reported as failed and the others are inserted in batches, see {@link
+   * BulkInserter}.
+   *
+   * @param user : signed in user posting the answers
+   * @param drafts : answers with the uuids of the questions they answer
+   * @return outcome of every answer, in the order of the drafts
+   * @throws InvalidRequestParameterException : if there are no drafts or too many
+   */
+  public List<BulkItemResult> createAnswers(
+      final AuthenticatedUser user, final List<AnswerDraft> drafts)
+      throws InvalidRequestParameterException {
+    bulkInserter.checkSize(drafts.size());
+    final Set<UUID> questionUuids = new HashSet<>();
+    for (AnswerDraft draft : drafts) {
+      if (draft.getQuestionUuid() != null) {
+        questionUuids.add(ResourceIds.toUuid(draft.getQuestionUuid()));
+      }
+    }
+    final Map<UUID, Integer> questionIds = questionDao.getQuestionIdsByUuids(questionUuids);
+
+    final BulkItemResult[] results = new BulkItemResult[drafts.size()];
+    final List<PendingAnswer> pending = new ArrayList<>(drafts.size());
+    for (int i = 0; i < drafts.size(); i++) {
+      final AnswerDraft draft = drafts.get(i);
+      final Integer questionId = questionIds.get(ResourceIds.toUuid(draft.getQuestionUuid()));
+      if (questionId == null) {
+        results[i] = BulkItemResult.failed("QUES-001", "The question entered is invalid");
+      } else if (draft.getAnswer() == null || draft.getAnswer().trim().isEmpty()) {
+        results[i] = BulkItemResult.failed("ANS-002", "Answer must not be empty");
+      } else if (draft.getAnswer().length() > MAX_ANSWER_LENGTH) {
+        results[i] =
+            BulkItemResult.failed(
+                "ANS-002", "Answer must be at most " + MAX_ANSWER_LENGTH + " characters long");
+      } else {
+        pending.add(new PendingAnswer(i, idGenerator.nextId(), questionId, draft));
+      }
+    }
+
+    final ZonedDateTime date = ZonedDateTime.now();
+    final BitSet failed =
+        bulkInserter.insert(
+            pending,
+            chunk -> {
+              final List<AnswerEntity> answerEntities = new ArrayList<>(chunk.size());
+              for (PendingAnswer answer : chunk) {
+                final AnswerEntity answerEntity = new AnswerEntity();
+                answerEntity.setUuid(answer.uuid);
+                answerEntity.setAnswer(answer.draft.getAnswer());
+                answerEntity.setDate(date);
+                answerEntity.setQuestionEntity(questionDao.getQuestionReference(answer.questionId));
+                answerEntity.setUserEntity(userDao.getUserReference(user.getId()));
+                answerEntities.add(answerEntity);
+              }
+              answerDao.createAnswers(answerEntities);
+              for (int i = 0; i < chunk.size(); i++) {
+                final AnswerEntity answerEntity = answerEntities.get(i);
+                contentSearchIndex.answerSaved(answerEntity.getId(), answerEntity.getAnswer());
+                resourceVersions.answersChanged(
+                    ResourceIds.toUuid(chunk.get(i).draft.getQuestionUuid()));
+              }
+            });
+    for (int i = 0; i < pending.size(); i++) {
+      final PendingAnswer answer = pending.get(i);
+      results[answer.position] =
+          failed.get(i)
+              ? BulkItemResult.failed(
+                  GenericErrorCode.GEN_001.getCode(), GenericErrorCode.GEN_001.getDefaultMessage())
+              : BulkItemResult.created(answer.uuid.toString());
+    }
+    return Arrays.asList(results);
   }
   /**
    * Update answer into the database
    *
-   * @param answerId : questionid that you want to answer
+   * @param user : signed in user editing the answer
+   * @param answerId : answerId of the answer that you want to edit
    * @param newAnswer : the answer body
-   * @param accessToken : access-token for authentication
-   * @throws AuthorizationFailedException : if authentication is failed
+   * @throws AuthorizationFailedException : if the user does not own the answer
    * @throws AnswerNotFoundException : if answer id is invalid
    * @return returns updated response for the answer
    */
   @Transactional(propagation = Propagation.REQUIRED)
   public AnswerEntity editAnswer(
-      final String accessToken, final String answerId, final String newAnswer)
+      final AuthenticatedUser user, final String answerId, final String newAnswer)
       throws AnswerNotFoundException, AuthorizationFailedException {
-    UserAuthEntity userAuthEntity = userAuthDao.getUserAuthByToken(accessToken);
-    if (userAuthEntity == null) {
-      throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-    } else if (userAuthEntity.getLogoutAt() != null) {
-      throw new AuthorizationFailedException(
-          "ATHR-002", "User is signed out.Sign in first to edit an answer");
-    }
     AnswerEntity answerEntity = answerDao.getAnswerById(answerId);
     if (answerEntity == null) {
       throw new AnswerNotFoundException("ANS-001", "Entered answer uuid does not exist");
     }
-    if (!answerEntity.getUserEntity().getUuid().equals(userAuthEntity.getUserEntity().getUuid())) {
+    if (!answerEntity.getUserEntity().getUuid().equals(user.getUuid())) {
       throw new AuthorizationFailedException(
           "ATHR-003", "Only the answer owner can edit the answer");
     }
     answerEntity.setAnswer(newAnswer);
     answerDao.updateAnswer(answerEntity);
+    resourceVersions.answersChanged(answerEntity.getQuestionEntity().getUuid());
+    contentSearchIndex.answerSaved(answerEntity.getId(), newAnswer);
     return answerEntity;
   }
   /**
    * Delete answer from the database
    *
    * @param answerId : answerId of the answer that you want to delete
-   * @param accessToken : access-token for authentication
-   * @throws AuthorizationFailedException : if authentication is failed
+   * @param user : signed in user deleting the answer
+   * @throws AuthorizationFailedException : if the user is neither the owner nor an admin
    * @throws AnswerNotFoundException : if answer id is invalid
    * @return returns deleted response for the answer
    */
   @Transactional(propagation = Propagation.REQUIRED)
-  public AnswerEntity deleteAnswer(final String answerId, final String accessToken)
+  public AnswerEntity deleteAnswer(final String answerId, final AuthenticatedUser user)
       throws AuthorizationFailedException, AnswerNotFoundException {
-
-    UserAuthEntity userAuthEntity = userAuthDao.getUserAuthByToken(accessToken);
-    if (userAuthEntity == null) {
-      throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-    } else if (userAuthEntity.getLogoutAt() != null) {
-      throw new AuthorizationFailedException(
-          "ATHR-002", "User is signed out.Sign in first to delete an answer");
-    }
-
     AnswerEntity answerEntity = answerDao.getAnswerById(answerId);
     if (answerEntity == null) {
       throw new AnswerNotFoundException("ANS-001", "Entered answer uuid does not exist");
     }
-    if (userAuthEntity.getUserEntity().getRole().equals("admin")
-        || answerEntity
-            .getUserEntity()
-            .getUuid()
-            .equals(userAuthEntity.getUserEntity().getUuid())) {
+    if (user.isAdmin() || answerEntity.getUserEntity().getUuid().equals(user.getUuid())) {
+      resourceVersions.answersChanged(answerEntity.getQuestionEntity().getUuid());
+      contentSearchIndex.answerDeleted(answerEntity.getId());
       return answerDao.deleteAnswer(answerId);
     } else {
       throw new AuthorizationFailedException(
@@ -130,27 +209,59 @@ public class AnswerService {
   /**
    * Get all answer from the database
    *
-   * @param questionId : questionid of which you want to see all answers
-   * @param accessToken : access-token for authentication
-   * @throws AuthorizationFailedException : if authentication is failed
-   * @throws InvalidQuestionException : if question id is invalid
+   * @param questionEntity : question returned by {@link #getAnsweredQuestion(String)}
    * @return returns all the answers to that question
    */
-  public List<AnswerEntity> getAllAnswersToQuestion(
-      final String questionId, final String accessToken)
-      throws AuthorizationFailedException, InvalidQuestionException {
-    UserAuthEntity userAuthEntity = userAuthDao.getUserAuthByToken(accessToken);
-    if (userAuthEntity == null) {
-      throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-    } else if (userAuthEntity.getLogoutAt() != null) {
-      throw new AuthorizationFailedException(
-          "ATHR-002", "User is signed out.Sign in first to get the answers");
-    }
+  public List<AnswerSummary> getAllAnswersToQuestion(final QuestionEntity questionEntity) {
+    return answerDao.getAllAnswersToQuestion(questionEntity);
+  }
+
+  /**
+   * Look up the question whose answers are listed
+   *
+   * @param questionId : uuid of the question
+   * @throws InvalidQuestionException : If Question id is invalid
+   * @return the question
+   */
+  public QuestionEntity getAnsweredQuestion(final String questionId)
+      throws InvalidQuestionException {
     QuestionEntity questionEntity = questionDao.getQuestionByUuid(questionId);
     if (questionEntity == null) {
       throw new InvalidQuestionException(
           "QUES-001", "The question with entered uuid whose details are to be seen does not exist");
     }
-    return answerDao.getAllAnswersToQuestion(questionId);
+    return questionEntity;
+  }
+
+  /**
+   * Stream the answers to a question without loading them all in memory
+   *
+   * @param questionEntity : question returned by {@link #getAnsweredQuestion(String)}
+   * @param consumer : receives the answers one at a time
+   */
+  @Transactional(readOnly = true)
+  public void streamAnswersToQuestion(
+      final QuestionEntity questionEntity, final Consumer<? super AnswerSummary> consumer) {
+    answerDao.streamAnswersToQuestion(questionEntity, consumer);
+  }
+
+  /** An answer of a bulk request that passed validation, with the uuid it will be created with. */
+  private static final class PendingAnswer {
+
+    private final int position;
+
+    private final UUID uuid;
+
+    private final Integer questionId;
+
+    private final AnswerDraft draft;
+
+    private PendingAnswer(
+        final int position, final UUID uuid, final Integer questionId, final AnswerDraft draft) {
+      this.position = position;
+      this.uuid = uuid;
+      this.questionId = questionId;
+      this.draft = draft;
+    }
   }
 }
@@ -0,0 +1,97 @@
+package com.upgrad.quora.service.business;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.upgrad.quora.service.common.AuthenticatedUser;
+import com.upgrad.quora.service.entity.UserAuthEntity;
+import com.upgrad.quora.service.entity.UserEntity;
+import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single place where an access token is turned into an {@link AuthenticatedUser}. Every
+ * authenticated endpoint goes through {@link #authorize(String, String)} exactly once per request.
+ *
+ * <p>In the default "database" verification mode the session is looked up in user_auth through
+ * {@link UserAuthTokenCache}. In "stateless" mode the JWT is verified locally and checked against
+ * the {@link TokenRevocationList}, so neither the database nor the cache is consulted.
+ */
+@Service
+public class AuthorizationService {
+
+  static final String STATELESS_VERIFICATION = "stateless";
+
+  @Autowired private UserAuthTokenCache userAuthTokenCache;
+
+  @Autowired private JwtTokenProvider jwtTokenProvider;
+
+  @Autowired private TokenRevocationList tokenRevocationList;
+
+  @Value("${quora.auth.token-verification:database}")
+  private String tokenVerification;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  private Timer authorizeTimer;
+
+  private boolean stateless;
+
+  @PostConstruct
+  void init() {
+    stateless = STATELESS_VERIFICATION.equals(tokenVerification);
+    if (stateless && !jwtTokenProvider.isSecretConfigured()) {
+      throw new IllegalStateException(
+          "quora.auth.jwt.secret must be set when quora.auth.token-verification is stateless");
+    }
+    authorizeTimer = meterRegistry.timer("quora.auth.authorize", "mode", tokenVerification);
+  }
+
+  /**
+   * Validate the access token and return the signed in user it belongs to
+   *
+   * @param accessToken : access token sent in the authorization header
+   * @param signedOutMessage : error message used when the session has been signed out
+   * @return principal of the signed in user
+   * @throws AuthorizationFailedException : ATHR-001 if the token is unknown, ATHR-002 if the user
+   *     has signed out or the session has expired
+   */
+  public AuthenticatedUser authorize(final String accessToken, final String signedOutMessage)
+      throws AuthorizationFailedException {
+    final long start = System.nanoTime();
+    try {
+      if (stateless) {
+        return verifyStateless(accessToken, signedOutMessage);
+      }
+      UserAuthEntity userAuthEntity = userAuthTokenCache.getUserAuthByToken(accessToken);
+      if (userAuthEntity == null) {
+        throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
+      }
+      // An expired session counts as signed out, the client has to sign in again
+      if (userAuthEntity.getLogoutAt() != null || userAuthEntity.isExpired()) {
+        throw new AuthorizationFailedException("ATHR-002", signedOutMessage);
+      }
+      UserEntity userEntity = userAuthEntity.getUserEntity();
+      return new AuthenticatedUser(userEntity.getId(), userEntity.getUuid(), userEntity.getRole());
+    } finally {
+      authorizeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private AuthenticatedUser verifyStateless(final String accessToken, final String signedOutMessage)
+      throws AuthorizationFailedException {
+    DecodedJWT decodedJWT = jwtTokenProvider.verifyToken(accessToken);
+    if (decodedJWT == null) {
+      throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
+    }
+    if (tokenRevocationList.isRevoked(decodedJWT.getId(), decodedJWT.getSubject())) {
+      throw new AuthorizationFailedException("ATHR-002", signedOutMessage);
+    }
+    return jwtTokenProvider.toAuthenticatedUser(decodedJWT);
+  }
+}
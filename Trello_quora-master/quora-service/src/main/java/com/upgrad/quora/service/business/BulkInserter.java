@@ -0,0 +1,101 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.exception.InvalidRequestParameterException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Inserts the items of the bulk creation endpoints in chunks of quora.bulk.chunk-size, one
+ * transaction per chunk, so that a large request neither holds a single long transaction nor pays
+ * one per item. A chunk that fails is retried item by item, so that a single bad row only fails
+ * itself.
+ */
+@Component
+public class BulkInserter implements MeterBinder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BulkInserter.class);
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  private final int maxItems;
+
+  private final int chunkSize;
+
+  private DistributionSummary requestSizes;
+
+  public BulkInserter(
+      @Value("${quora.bulk.max-items:1000}") final int maxItems,
+      @Value("${quora.bulk.chunk-size:100}") final int chunkSize) {
+    this.maxItems = maxItems;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Check the number of items of a bulk request.
+   *
+   * @param size : number of items in the request
+   * @throws InvalidRequestParameterException : if the request is empty or too large
+   */
+  public void checkSize(final int size) throws InvalidRequestParameterException {
+    if (size < 1 || size > maxItems) {
+      throw new InvalidRequestParameterException(
+          "REQ-001", "Bulk request must contain between 1 and " + maxItems + " items");
+    }
+    if (requestSizes != null) {
+      requestSizes.record(size);
+    }
+  }
+
+  /**
+   * Insert the items chunk by chunk. The inserter is called inside the transaction of each chunk,
+   * so the after-commit hooks it registers only run for chunks that committed.
+   *
+   * @param items : items to insert
+   * @param inserter : inserts a list of items in the current transaction
+   * @return positions in items of the items that could not be inserted
+   */
+  public <T> BitSet insert(final List<T> items, final Consumer<List<T>> inserter) {
+    final BitSet failed = new BitSet(items.size());
+    for (int from = 0; from < items.size(); from += chunkSize) {
+      final List<T> chunk = items.subList(from, Math.min(from + chunkSize, items.size()));
+      try {
+        execute(chunk, inserter);
+      } catch (RuntimeException chunkFailure) {
+        LOG.warn("Bulk insert of {} items failed, retrying individually", chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+          try {
+            execute(Collections.singletonList(chunk.get(i)), inserter);
+          } catch (RuntimeException e) {
+            failed.set(from + i);
+          }
+        }
+      }
+    }
+    return failed;
+  }
+
+  private <T> void execute(final List<T> chunk, final Consumer<List<T>> inserter) {
+    transactionTemplate.execute(
+        status -> {
+          inserter.accept(chunk);
+          return null;
+        });
+  }
+
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    requestSizes = registry.summary("quora.bulk.request.size");
+  }
+}
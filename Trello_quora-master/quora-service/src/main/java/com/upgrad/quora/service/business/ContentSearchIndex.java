@@ -0,0 +1,200 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.Bm25Index;
+import com.upgrad.quora.service.common.QuestionSummary;
+import com.upgrad.quora.service.common.SearchCursor;
+import com.upgrad.quora.service.dao.AnswerDao;
+import com.upgrad.quora.service.dao.QuestionDao;
+import com.upgrad.quora.service.entity.QuestionEntity;
+import com.upgrad.quora.service.entity.UserEntity;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-process full-text indexes of the question contents and answer texts, used by the search
+ * endpoints when quora.search.backend is memory. The indexes are built from the database at startup
+ * and then kept up to date by the write paths, which apply their change once the transaction
+ * commits. With the database backend they stay empty and every method is a no-op.
+ */
+@Component
+public class ContentSearchIndex implements MeterBinder {
+
+  static final String MEMORY_BACKEND = "memory";
+
+  private static final Logger LOG = LoggerFactory.getLogger(ContentSearchIndex.class);
+
+  @Autowired private QuestionDao questionDao;
+
+  @Autowired private AnswerDao answerDao;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  private final boolean enabled;
+
+  private final Bm25Index questions = new Bm25Index();
+
+  private final Bm25Index answers = new Bm25Index();
+
+  public ContentSearchIndex(@Value("${quora.search.backend:memory}") final String backend) {
+    this.enabled = MEMORY_BACKEND.equals(backend);
+  }
+
+  @PostConstruct
+  void load() {
+    if (!enabled) {
+      return;
+    }
+    final long start = System.nanoTime();
+    transactionTemplate.execute(
+        status -> {
+          questionDao.streamAllQuestions(
+              question -> questions.put(question.getId(), question.getContent()));
+          answerDao.streamAnswerContents(row -> answers.put((Integer) row[0], (String) row[1]));
+          return null;
+        });
+    LOG.info(
+        "Indexed {} questions and {} answers in {} ms",
+        questions.size(),
+        answers.size(),
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  /** @return true if searches are served from these indexes */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Index a created or edited question.
+   *
+   * @param questionId : id of the question
+   * @param content : content of the question
+   */
+  public void questionSaved(final int questionId, final String content) {
+    if (enabled) {
+      afterCommit(() -> questions.put(questionId, content));
+    }
+  }
+
+  /**
+   * Drop a question and its answers from the indexes. Must be called before the question is
+   * deleted, while its answers can still be looked up.
+   *
+   * @param questionEntity : question about to be deleted
+   */
+  public void questionDeleted(final QuestionEntity questionEntity) {
+    if (!enabled) {
+      return;
+    }
+    final int questionId = questionEntity.getId();
+    final List<Integer> answerIds = answerDao.getAnswerIdsToQuestion(questionEntity);
+    afterCommit(
+        () -> {
+          questions.remove(questionId);
+          answerIds.forEach(answers::remove);
+        });
+  }
+
+  /**
+   * Index a created or edited answer.
+   *
+   * @param answerId : id of the answer
+   * @param answer : text of the answer
+   */
+  public void answerSaved(final int answerId, final String answer) {
+    if (enabled) {
+      afterCommit(() -> answers.put(answerId, answer));
+    }
+  }
+
+  /**
+   * Drop a deleted answer from the index.
+   *
+   * @param answerId : id of the answer
+   */
+  public void answerDeleted(final int answerId) {
+    if (enabled) {
+      afterCommit(() -> answers.remove(answerId));
+    }
+  }
+
+  /**
+   * Drop the questions and answers deleted with a user. Must be called before the user is deleted.
+   *
+   * @param userEntity : user about to be deleted
+   */
+  public void userDeleted(final UserEntity userEntity) {
+    if (!enabled) {
+      return;
+    }
+    final List<Integer> questionIds = new ArrayList<>();
+    for (QuestionSummary question : questionDao.getAllQuestionsByUser(userEntity)) {
+      questionIds.add(question.getId());
+    }
+    final List<Integer> answerIds = answerDao.getAnswerIdsRemovedWithUser(userEntity);
+    afterCommit(
+        () -> {
+          questionIds.forEach(questions::remove);
+          answerIds.forEach(answers::remove);
+        });
+  }
+
+  /**
+   * @param terms : distinct query terms
+   * @param after : last hit of the previous page, null for the first page
+   * @param limit : maximum number of hits
+   * @return ids and scores of the matching questions, best first
+   */
+  public List<SearchCursor> searchQuestions(
+      final List<String> terms, final SearchCursor after, final int limit) {
+    return questions.search(terms, after, limit);
+  }
+
+  /**
+   * @param terms : distinct query terms
+   * @param after : last hit of the previous page, null for the first page
+   * @param limit : maximum number of hits
+   * @return ids and scores of the matching answers, best first
+   */
+  public List<SearchCursor> searchAnswers(
+      final List<String> terms, final SearchCursor after, final int limit) {
+    return answers.search(terms, after, limit);
+  }
+
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    Gauge.builder("quora.search.indexed", questions, Bm25Index::size)
+        .tag("type", "question")
+        .register(registry);
+    Gauge.builder("quora.search.indexed", answers, Bm25Index::size)
+        .tag("type", "answer")
+        .register(registry);
+  }
+
+  private static void afterCommit(final Runnable update) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+              update.run();
+            }
+          });
+    } else {
+      update.run();
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.dao.UserAuthDao;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically removes sessions from user_auth that expired, or were signed out, longer than the
+ * retention period ago. Rows are deleted in bounded chunks, each in its own statement, so a run
+ * never holds long locks; a run stops after a maximum number of chunks and continues on the next
+ * schedule.
+ *
+ * <p>With stateless token verification, signed out sessions are kept until they expire because
+ * {@link TokenRevocationList} reloads them at startup.
+ */
+@Component
+public class ExpiredSessionSweeper implements MeterBinder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ExpiredSessionSweeper.class);
+
+  static final String PARTITIONED_LAYOUT = "partitioned";
+
+  @Autowired private UserAuthDao userAuthDao;
+
+  private final boolean enabled;
+
+  private final boolean partitioned;
+
+  private final boolean includeSignedOut;
+
+  private final long retentionHours;
+
+  private final int chunkSize;
+
+  private final int maxChunksPerRun;
+
+  private final int partitionMonthsAhead;
+
+  private Counter deletedRows;
+
+  private Counter droppedPartitions;
+
+  private Timer runTimer;
+
+  public ExpiredSessionSweeper(
+      @Value("${quora.auth.session-sweeper.enabled:true}") final boolean enabled,
+      @Value("${quora.auth.session-sweeper.layout:plain}") final String layout,
+      @Value("${quora.auth.token-verification:database}") final String tokenVerification,
+      @Value("${quora.auth.session-sweeper.retention-hours:24}") final long retentionHours,
+      @Value("${quora.auth.session-sweeper.chunk-size:1000}") final int chunkSize,
+      @Value("${quora.auth.session-sweeper.max-chunks-per-run:100}") final int maxChunksPerRun,
+      @Value("${quora.auth.session-sweeper.partition-months-ahead:2}")
+          final int partitionMonthsAhead) {
+    this.enabled = enabled;
+    this.partitioned = PARTITIONED_LAYOUT.equals(layout);
+    this.includeSignedOut = !AuthorizationService.STATELESS_VERIFICATION.equals(tokenVerification);
+    this.retentionHours = retentionHours;
+    this.chunkSize = chunkSize;
+    this.maxChunksPerRun = maxChunksPerRun;
+    this.partitionMonthsAhead = partitionMonthsAhead;
+  }
+
+  /** Delete the sessions that are past the retention period. */
+  @Scheduled(
+      initialDelayString = "${quora.auth.session-sweeper.interval-millis:600000}",
+      fixedDelayString = "${quora.auth.session-sweeper.interval-millis:600000}")
+  public void sweep() {
+    if (!enabled) {
+      return;
+    }
+    final long start = System.nanoTime();
+    final ZonedDateTime cutoff = ZonedDateTime.now().minusHours(retentionHours);
+    int dropped = 0;
+    if (partitioned) {
+      dropped = userAuthDao.maintainPartitions(cutoff, partitionMonthsAhead);
+    }
+    long deleted = 0;
+    for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+      final int chunkDeleted =
+          userAuthDao.deleteExpiredSessions(cutoff, includeSignedOut, chunkSize);
+      deleted += chunkDeleted;
+      if (chunkDeleted == 0) {
+        break;
+      }
+    }
+    final long elapsed = System.nanoTime() - start;
+    if (runTimer != null) {
+      runTimer.record(elapsed, TimeUnit.NANOSECONDS);
+      deletedRows.increment(deleted);
+      droppedPartitions.increment(dropped);
+    }
+    if (deleted > 0 || dropped > 0) {
+      LOG.info("Swept {} sessions and {} partitions of user_auth", deleted, dropped);
+    }
+  }
+
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    deletedRows = registry.counter("quora.auth.sessions.swept");
+    droppedPartitions = registry.counter("quora.auth.sessions.partitions.dropped");
+    runTimer = registry.timer("quora.auth.sessions.sweep");
+  }
+}
@@ -0,0 +1,31 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.TimeOrderedUuidGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Source of the uuids of new users, sessions, questions and answers. Depending on
+ * quora.ids.generator they are time ordered ("time-ordered", see {@link
+ * TimeOrderedUuidGenerator}), so that inserts append to the right edge of the uuid indexes, or
+ * random version 4 uuids ("random").
+ */
+@Component
+public class IdGenerator {
+
+  static final String RANDOM_GENERATOR = "random";
+
+  private final TimeOrderedUuidGenerator timeOrdered;
+
+  public IdGenerator(@Value("${quora.ids.generator:time-ordered}") final String generator) {
+    this.timeOrdered =
+        RANDOM_GENERATOR.equals(generator) ? null : new TimeOrderedUuidGenerator();
+  }
+
+  /** @return uuid for a new row */
+  public UUID nextId() {
+    return timeOrdered != null ? timeOrdered.next() : UUID.randomUUID();
+  }
+}
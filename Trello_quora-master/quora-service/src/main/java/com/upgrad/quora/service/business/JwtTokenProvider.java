@@ -1,58 +1,122 @@
 package com.upgrad.quora.service.business;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.upgrad.quora.service.common.AuthenticatedUser;
 import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.ResourceIds;
 import com.upgrad.quora.service.common.UnexpectedException;
+import com.upgrad.quora.service.entity.UserEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
 
+import java.security.SecureRandom;
 import java.time.ZonedDateTime;
-import java.time.temporal.ChronoField;
+import java.util.Base64;
 import java.util.Date;
 import java.util.UUID;
 
-/** This class is used in the project to provide JWT token after successful authentication */
+/**
+ * This class is used in the project to provide JWT token after successful authentication and to
+ * verify such tokens locally when the server runs in stateless verification mode.
+ */
+@Component
 public class JwtTokenProvider {
   private static final String TOKEN_ISSUER = "https://quora.io";
+  private static final String TOKEN_AUDIENCE = "https://quora.io/api";
+  private static final String USER_ID_CLAIM = "uid";
+  private static final String ROLE_CLAIM = "role";
 
   private final Algorithm algorithm;
 
+  private final JWTVerifier verifier;
+
+  private final boolean secretConfigured;
+
   /**
-   * A constructor for JwtTokenProvider class which receives user password as an argument to be used
-   * in the signature part of JWT access token.
+   * A constructor for JwtTokenProvider class which receives the server-held signing secret. When no
+   * secret is configured a random one is generated, so tokens do not survive a restart.
    */
-  public JwtTokenProvider(final String secret) {
+  public JwtTokenProvider(@Value("${quora.auth.jwt.secret:}") final String secret) {
+    this.secretConfigured = !secret.isEmpty();
     try {
-      algorithm = Algorithm.HMAC512(secret);
+      algorithm = Algorithm.HMAC512(secretConfigured ? secret : randomSecret());
     } catch (IllegalArgumentException e) {
-      throw new UnexpectedException(GenericErrorCode.GEN_001);
+      throw new UnexpectedException(GenericErrorCode.GEN_001, e);
     }
+    verifier = JWT.require(algorithm).withIssuer(TOKEN_ISSUER).withAudience(TOKEN_AUDIENCE).build();
   }
 
   /**
-   * This method receives uuid of the user, current time and expiry time of the access token. This
-   * information is stored in the payload of the JWT token and the JWT token is returned by this
-   * method.
+   * This method receives the session uuid, the user, current time and expiry time of the access
+   * token. This information is stored in the payload of the JWT token and the JWT token is returned
+   * by this method.
    */
   /**
-   * @param userUuid - uuid of the user
+   * @param sessionUuid - uuid of the user_auth row, used as the token id
+   * @param userEntity - the signed in user
    * @param issuedDateTime - current time
    * @param expiresDateTime - expiry time of the JWT token
    * @return - generated JWT token
    */
   public String generateToken(
-      final String userUuid,
+      final UUID sessionUuid,
+      final UserEntity userEntity,
       final ZonedDateTime issuedDateTime,
       final ZonedDateTime expiresDateTime) {
 
-    final Date issuedAt = new Date(issuedDateTime.getLong(ChronoField.INSTANT_SECONDS));
-    final Date expiresAt = new Date(expiresDateTime.getLong(ChronoField.INSTANT_SECONDS));
+    final Date issuedAt = Date.from(issuedDateTime.toInstant());
+    final Date expiresAt = Date.from(expiresDateTime.toInstant());
 
     return JWT.create()
         .withIssuer(TOKEN_ISSUER) //
-        .withKeyId(UUID.randomUUID().toString())
-        .withAudience(userUuid) //
+        .withAudience(TOKEN_AUDIENCE) //
+        .withJWTId(sessionUuid.toString())
+        .withSubject(userEntity.getUuid().toString())
+        .withClaim(USER_ID_CLAIM, userEntity.getId())
+        .withClaim(ROLE_CLAIM, userEntity.getRole())
         .withIssuedAt(issuedAt)
         .withExpiresAt(expiresAt)
         .sign(algorithm);
   }
+
+  /**
+   * This method checks the signature, issuer, audience and expiry of a token without any database
+   * access.
+   *
+   * @param token - access token sent by the client
+   * @return - decoded token, or null if the token is not valid
+   */
+  public DecodedJWT verifyToken(final String token) {
+    try {
+      return verifier.verify(token);
+    } catch (JWTVerificationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @param decodedJWT - token returned by {@link #verifyToken(String)}
+   * @return - principal described by the claims of the token
+   */
+  public AuthenticatedUser toAuthenticatedUser(final DecodedJWT decodedJWT) {
+    return new AuthenticatedUser(
+        decodedJWT.getClaim(USER_ID_CLAIM).asInt(),
+        ResourceIds.toUuid(decodedJWT.getSubject()),
+        decodedJWT.getClaim(ROLE_CLAIM).asString());
+  }
+
+  /** @return - true if the signing secret comes from configuration rather than being random */
+  public boolean isSecretConfigured() {
+    return secretConfigured;
+  }
+
+  private static String randomSecret() {
+    final byte[] secret = new byte[64];
+    new SecureRandom().nextBytes(secret);
+    return Base64.getEncoder().encodeToString(secret);
+  }
 }
@@ -1,46 +1,144 @@
 package com.upgrad.quora.service.business;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Random;
 
+/**
+ * Hashes passwords with PBKDF2. New hashes use the iteration count picked at startup so that one
+ * hash takes roughly quora.auth.hashing.target-millis on this hardware; the parameters used are
+ * stored with every user so older hashes can still be verified and upgraded on the next login.
+ */
 @Component
 public class PasswordCryptographyProvider {
 
+  private static final Logger LOG = LoggerFactory.getLogger(PasswordCryptographyProvider.class);
+
   private static String SECRET_KEY_ALGORITHM = "PBKDF2WithHmacSHA512";
-  private static int HASHING_ITERATIONS = 1000;
-  private static int HASHING_KEY_LENGTH = 64;
+  /** Parameters of hashes created before they were stored with the user. */
+  static final int LEGACY_HASHING_ITERATIONS = 1000;
+
+  static final int LEGACY_HASHING_KEY_LENGTH = 64;
+
+  private static final int CALIBRATION_SAMPLES = 5;
   private static final char[] hexArray = "0123456789ABCDEF".toCharArray();
 
+  private final long targetMillis;
+
+  private final int minIterations;
+
+  private final int maxIterations;
+
+  private final int keyLength;
+
+  private volatile int iterations;
+
+  public PasswordCryptographyProvider(
+      @Value("${quora.auth.hashing.target-millis:0}") final long targetMillis,
+      @Value("${quora.auth.hashing.min-iterations:1000}") final int minIterations,
+      @Value("${quora.auth.hashing.max-iterations:1000000}") final int maxIterations,
+      @Value("${quora.auth.hashing.key-length:64}") final int keyLength) {
+    this.targetMillis = targetMillis;
+    this.minIterations = minIterations;
+    this.maxIterations = Math.max(minIterations, maxIterations);
+    this.keyLength = keyLength;
+    this.iterations = minIterations;
+  }
+
   /**
-   * This method generates Salt and hashed Password
+   * This method measures the cost of a hash on this machine and picks the iteration count that
+   * meets the target latency, bounded by the configured minimum and maximum. A target of 0 keeps
+   * the minimum.
+   */
+  @PostConstruct
+  void calibrate() {
+    if (targetMillis <= 0) {
+      return;
+    }
+    final char[] password = "calibration".toCharArray();
+    final byte[] salt = generateSaltBytes();
+    hashPassword(password, salt, minIterations, keyLength);
+
+    final long[] samples = new long[CALIBRATION_SAMPLES];
+    for (int i = 0; i < samples.length; i++) {
+      final long start = System.nanoTime();
+      hashPassword(password, salt, minIterations, keyLength);
+      samples[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(samples);
+    final double nanosPerIteration = (double) samples[samples.length / 2] / minIterations;
+    final double calibrated = targetMillis * 1_000_000d / nanosPerIteration;
+    iterations = (int) Math.max(minIterations, Math.min(maxIterations, calibrated));
+    LOG.info(
+        "Calibrated password hashing to {} iterations for a target of {} ms",
+        iterations,
+        targetMillis);
+  }
+
+  /**
+   * This method generates Salt and hashed Password with the current parameters, see {@link
+   * #getIterations()} and {@link #getKeyLength()}.
    *
    * @param password char array.
    * @return String array with [0] encoded salt [1] hashed password.
    */
   public String[] encrypt(final String password) {
     byte[] salt = generateSaltBytes();
-    byte[] hashedPassword = hashPassword(password.toCharArray(), salt);
+    byte[] hashedPassword = hashPassword(password.toCharArray(), salt, iterations, keyLength);
     return new String[] {getBase64EncodedBytesAsString(salt), bytesToHex(hashedPassword)};
   }
 
   /**
-   * This method re-generates hashed Password from raw-password and salt. This will be used during
-   * authentication.
+   * This method re-generates hashed Password from raw-password, salt and the parameters stored
+   * with the user. This will be used during authentication.
    *
    * @param password char array.
    * @param salt byte array.
+   * @param iterations iterations the hash was created with, null for the legacy value.
+   * @param keyLength key length in bits the hash was created with, null for the legacy value.
    * @return byte array of hashed password.
    */
-  public static String encrypt(final String password, String salt) {
-    return bytesToHex(hashPassword(password.toCharArray(), getBase64DecodedStringAsBytes(salt)));
+  public static String encrypt(
+      final String password, String salt, Integer iterations, Integer keyLength) {
+    return bytesToHex(
+        hashPassword(
+            password.toCharArray(),
+            getBase64DecodedStringAsBytes(salt),
+            iterations != null ? iterations : LEGACY_HASHING_ITERATIONS,
+            keyLength != null ? keyLength : LEGACY_HASHING_KEY_LENGTH));
+  }
+
+  /**
+   * @param iterations iterations stored with the user, null for the legacy value.
+   * @param keyLength key length stored with the user, null for the legacy value.
+   * @return true if a hash with these parameters is weaker than a new hash would be
+   */
+  public boolean isOutdated(final Integer iterations, final Integer keyLength) {
+    final int storedIterations = iterations != null ? iterations : LEGACY_HASHING_ITERATIONS;
+    final int storedKeyLength = keyLength != null ? keyLength : LEGACY_HASHING_KEY_LENGTH;
+    return storedIterations < this.iterations || storedKeyLength != this.keyLength;
+  }
+
+  /** @return iteration count used for new hashes */
+  public int getIterations() {
+    return iterations;
+  }
+
+  /** @return key length in bits used for new hashes */
+  public int getKeyLength() {
+    return keyLength;
   }
 
   /**
@@ -60,12 +158,15 @@ public class PasswordCryptographyProvider {
    *
    * @param password char array.
    * @param salt byte array.
+   * @param iterations PBKDF2 iteration count.
+   * @param keyLength key length in bits.
    * @return byte array of hashed password.
    */
-  private static byte[] hashPassword(final char[] password, final byte[] salt) {
+  private static byte[] hashPassword(
+      final char[] password, final byte[] salt, final int iterations, final int keyLength) {
     try {
       SecretKeyFactory skf = SecretKeyFactory.getInstance(SECRET_KEY_ALGORITHM);
-      PBEKeySpec spec = new PBEKeySpec(password, salt, HASHING_ITERATIONS, HASHING_KEY_LENGTH);
+      PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, keyLength);
       SecretKey key = skf.generateSecret(spec);
       byte[] res = key.getEncoded();
       return res;
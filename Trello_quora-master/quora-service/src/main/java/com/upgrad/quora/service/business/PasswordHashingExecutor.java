@@ -0,0 +1,121 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.UnexpectedException;
+import com.upgrad.quora.service.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dedicated, bounded pool on which password hashing runs. PBKDF2 is deliberately CPU heavy, so a
+ * burst of signins or signups is limited to a fixed number of hashing threads and a bounded queue;
+ * requests beyond that are rejected straight away with SVC-001 instead of occupying every servlet
+ * thread and starving the cheap read endpoints.
+ */
+@Component
+public class PasswordHashingExecutor implements MeterBinder, DisposableBean {
+
+  private final ThreadPoolExecutor executor;
+
+  private final long timeoutMillis;
+
+  private Timer hashTimer;
+
+  private Counter rejections;
+
+  public PasswordHashingExecutor(
+      @Value("${quora.auth.hashing.threads:0}") final int threads,
+      @Value("${quora.auth.hashing.queue-capacity:64}") final int queueCapacity,
+      @Value("${quora.auth.hashing.timeout-millis:5000}") final long timeoutMillis) {
+    final int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.executor =
+        new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new HashingThreadFactory(),
+            new ThreadPoolExecutor.AbortPolicy());
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Run a hashing task on the hashing pool and wait for its result.
+   *
+   * @param task : the hashing work
+   * @return result of the task
+   * @throws ServiceUnavailableException : if the queue is full or the result is not ready in time
+   */
+  public <T> T execute(final Callable<T> task) throws ServiceUnavailableException {
+    final Future<T> future;
+    try {
+      future = executor.submit(() -> timed(task));
+    } catch (RejectedExecutionException e) {
+      if (rejections != null) {
+        rejections.increment();
+      }
+      throw new ServiceUnavailableException(
+          "SVC-001", "Server is busy authenticating other users, try again later");
+    }
+    try {
+      return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      throw new ServiceUnavailableException(
+          "SVC-001", "Server is busy authenticating other users, try again later");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new UnexpectedException(GenericErrorCode.GEN_001, e);
+    } catch (ExecutionException e) {
+      throw new UnexpectedException(GenericErrorCode.GEN_001, e.getCause());
+    }
+  }
+
+  private <T> T timed(final Callable<T> task) throws Exception {
+    return hashTimer != null ? hashTimer.recordCallable(task) : task.call();
+  }
+
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    hashTimer = registry.timer("quora.auth.hashing.latency");
+    rejections = registry.counter("quora.auth.hashing.rejections");
+    Gauge.builder("quora.auth.hashing.queue.depth", executor, e -> e.getQueue().size())
+        .register(registry);
+    Gauge.builder("quora.auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+        .register(registry);
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  private static final class HashingThreadFactory implements ThreadFactory {
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+      final Thread thread = new Thread(runnable, "password-hashing-" + sequence.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -1,92 +1,176 @@
 package com.upgrad.quora.service.business;
 
+import com.upgrad.quora.service.common.AuthenticatedUser;
+import com.upgrad.quora.service.common.BulkItemResult;
+import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.KeysetCursor;
+import com.upgrad.quora.service.common.KeysetPage;
+import com.upgrad.quora.service.common.QuestionSummary;
 import com.upgrad.quora.service.dao.QuestionDao;
-import com.upgrad.quora.service.dao.UserAuthDao;
 import com.upgrad.quora.service.dao.UserDao;
 import com.upgrad.quora.service.entity.QuestionEntity;
-import com.upgrad.quora.service.entity.UserAuthEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
+import com.upgrad.quora.service.exception.InvalidRequestParameterException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 public class QuestionService {
 
-  @Autowired private QuestionDao questionDao;
+  /** Length of the content column of the question table. */
+  private static final int MAX_CONTENT_LENGTH = 500;
 
-  @Autowired private UserAuthDao userAuthDao;
+  @Autowired private QuestionDao questionDao;
 
   @Autowired private UserDao userDao;
 
+  @Autowired private ResourceVersions resourceVersions;
+
+  @Autowired private ContentSearchIndex contentSearchIndex;
+
+  @Autowired private BulkInserter bulkInserter;
+
+  @Autowired private IdGenerator idGenerator;
+
+  @Value("${quora.pagination.default-limit:20}")
+  private int defaultLimit;
+
+  @Value("${quora.pagination.max-limit:100}")
+  private int maxLimit;
+
   /**
-   * Business logic to authorize user who wants to create question and create a question
+   * Business logic to create a question on behalf of the signed in user
    *
-   * @param authorization
+   * @param user
    * @param questionEntity
    * @return QuestionEntity
-   * @throws AuthorizationFailedException
    */
   @Transactional(propagation = Propagation.REQUIRED)
-  public QuestionEntity createQuestion(String authorization, QuestionEntity questionEntity)
-      throws AuthorizationFailedException {
-    UserAuthEntity userAuthEntity = userAuthDao.getUserAuthByToken(authorization);
-    if (userAuthEntity == null) {
-      throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-    } else {
-      // Retrieve logout_at attribute value of UserAuthEntity to check if user has already signed
-      // out
-      ZonedDateTime logoutAt = userAuthEntity.getLogoutAt();
-      if (logoutAt != null) {
-        throw new AuthorizationFailedException(
-            "ATHR-002", "User is signed out.Sign in first to post a question");
+  public QuestionEntity createQuestion(
+      final AuthenticatedUser user, final QuestionEntity questionEntity) {
+    // Assign a UUID to the question that is being created.
+    questionEntity.setUuid(idGenerator.nextId());
+    questionEntity.setUserEntity(userDao.getUserReference(user.getId()));
+    resourceVersions.questionsChanged(user.getUuid());
+    final QuestionEntity createdQuestion = questionDao.createQuestion(questionEntity);
+    contentSearchIndex.questionSaved(createdQuestion.getId(), createdQuestion.getContent());
+    return createdQuestion;
+  }
+
+  /**
+   * Business logic to create several questions on behalf of the signed in user. Questions with
+   * empty or too long content are reported as failed and the others are inserted in batches, see
+   * {@link BulkInserter}.
+   *
+   * @param user : signed in user posting the questions
+   * @param contents : contents of the questions
+   * @return outcome of every question, in the order of the contents
+   * @throws InvalidRequestParameterException : if there are no contents or too many
+   */
+  public List<BulkItemResult> createQuestions(
+      final AuthenticatedUser user, final List<String> contents)
+      throws InvalidRequestParameterException {
+    bulkInserter.checkSize(contents.size());
+    final BulkItemResult[] results = new BulkItemResult[contents.size()];
+    final List<PendingQuestion> pending = new ArrayList<>(contents.size());
+    for (int i = 0; i < contents.size(); i++) {
+      final String content = contents.get(i);
+      if (content == null || content.trim().isEmpty()) {
+        results[i] = BulkItemResult.failed("QUES-002", "Question content must not be empty");
+      } else if (content.length() > MAX_CONTENT_LENGTH) {
+        results[i] =
+            BulkItemResult.failed(
+                "QUES-002",
+                "Question content must be at most " + MAX_CONTENT_LENGTH + " characters long");
       } else {
-        // Assign a UUID to the question that is being created.
-        questionEntity.setUuid(UUID.randomUUID().toString());
-        questionEntity.setUserEntity(userAuthEntity.getUserEntity());
-        return questionDao.createQuestion(questionEntity);
+        pending.add(new PendingQuestion(i, idGenerator.nextId(), content));
       }
     }
+
+    final ZonedDateTime date = ZonedDateTime.now();
+    final BitSet failed =
+        bulkInserter.insert(
+            pending,
+            chunk -> {
+              final List<QuestionEntity> questionEntities = new ArrayList<>(chunk.size());
+              for (PendingQuestion question : chunk) {
+                final QuestionEntity questionEntity = new QuestionEntity();
+                questionEntity.setUuid(question.uuid);
+                questionEntity.setContent(question.content);
+                questionEntity.setDate(date);
+                questionEntity.setUserEntity(userDao.getUserReference(user.getId()));
+                questionEntities.add(questionEntity);
+              }
+              questionDao.createQuestions(questionEntities);
+              for (QuestionEntity questionEntity : questionEntities) {
+                contentSearchIndex.questionSaved(
+                    questionEntity.getId(), questionEntity.getContent());
+              }
+              resourceVersions.questionsChanged(user.getUuid());
+            });
+    for (int i = 0; i < pending.size(); i++) {
+      final PendingQuestion question = pending.get(i);
+      results[question.position] =
+          failed.get(i)
+              ? BulkItemResult.failed(
+                  GenericErrorCode.GEN_001.getCode(), GenericErrorCode.GEN_001.getDefaultMessage())
+              : BulkItemResult.created(question.uuid.toString());
+    }
+    return Arrays.asList(results);
   }
 
   /**
-   * Business logic to authorize user who wants to get a list of all questions and return list of
-   * questions
+   * Business logic to return one page of all questions, newest first
    *
-   * @param authorization
-   * @return list of all questions
-   * @throws AuthorizationFailedException
+   * @param cursor : cursor returned with the previous page, null for the first page
+   * @param limit : maximum number of questions in the page, null for the default
+   * @return page of questions and the cursor of the next page
+   * @throws InvalidRequestParameterException : if the cursor or limit is invalid
    */
-  public List<QuestionEntity> getAllQuestions(final String authorization)
-      throws AuthorizationFailedException {
-    UserAuthEntity userAuthEntity = userAuthDao.getUserAuthByToken(authorization);
-    if (userAuthEntity == null) {
-      throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-    } else {
-      // Retrieve logout_at attribute value of UserAuthEntity to check if user has already signed
-      // out
-      ZonedDateTime logoutAt = userAuthEntity.getLogoutAt();
-      if (logoutAt != null) {
-        throw new AuthorizationFailedException(
-            "ATHR-002", "User is signed out.Sign in first to get all questions");
-      } else {
-        return questionDao.getAllQuestions();
+  public KeysetPage<QuestionSummary> getQuestionsPage(final String cursor, final Integer limit)
+      throws InvalidRequestParameterException {
+    final int pageSize = limit != null ? limit : defaultLimit;
+    if (pageSize < 1 || pageSize > maxLimit) {
+      throw new InvalidRequestParameterException(
+          "REQ-001", "Limit must be between 1 and " + maxLimit);
+    }
+    KeysetCursor after = null;
+    if (cursor != null) {
+      try {
+        after = KeysetCursor.decode(cursor);
+      } catch (IllegalArgumentException e) {
+        throw new InvalidRequestParameterException("REQ-001", "Entered cursor is invalid");
       }
     }
+
+    // Fetch one extra row to find out whether there is a next page
+    final List<QuestionSummary> questions = questionDao.getQuestionsPage(after, pageSize + 1);
+    if (questions.size() <= pageSize) {
+      return new KeysetPage<>(questions, null);
+    }
+    final List<QuestionSummary> page = questions.subList(0, pageSize);
+    final QuestionSummary last = page.get(pageSize - 1);
+    return new KeysetPage<>(page, new KeysetCursor(last.getDate(), last.getId()).encode());
   }
 
   /**
    * Business logic to check whether user is authorized to edit question and edit the question
    *
-   * @param authorization
+   * @param user
    * @param questionUuid
    * @return edited question
    * @throws AuthorizationFailedException
@@ -94,97 +178,121 @@ public class QuestionService {
    */
   @Transactional(propagation = Propagation.REQUIRED)
   public QuestionEntity editQuestionContent(
-      final String authorization, String questionUuid, String content)
+      final AuthenticatedUser user, String questionUuid, String content)
       throws AuthorizationFailedException, InvalidQuestionException {
-    UserAuthEntity userAuthEntity = userAuthDao.getUserAuthByToken(authorization);
-    if (userAuthEntity == null) {
-      throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-    } else {
-      // Retrieve logout_at attribute value of UserAuthEntity to check if user has already signed
-      // out
-      ZonedDateTime logoutAt = userAuthEntity.getLogoutAt();
-      if (logoutAt != null) {
-        throw new AuthorizationFailedException(
-            "ATHR-002", "User is signed out.Sign in first to edit the question");
-      } else {
-        // Get question by questionUuid passed by user
-        QuestionEntity questionByUuid = questionDao.getQuestionByUuid(questionUuid);
-        if (questionByUuid == null) {
-          throw new InvalidQuestionException("QUES-001", "Entered question uuid does not exist");
-        } else {
-          // Compare the userId to check if the user trying to edit question is the owner of the
-          // question
-          Integer questionEditorId = userAuthEntity.getUserEntity().getId();
-          Integer questionOwnerId = questionByUuid.getUserEntity().getId();
-          if (!questionEditorId.equals(questionOwnerId)) {
-            throw new AuthorizationFailedException(
-                "ATHR-003", "Only the question owner can edit the question");
-          } else {
-            questionByUuid.setContent(content);
-            return questionDao.editQuestion(questionByUuid);
-          }
-        }
-      }
+    // Get question by questionUuid passed by user
+    QuestionEntity questionByUuid = questionDao.getQuestionWithOwnerByUuid(questionUuid);
+    if (questionByUuid == null) {
+      throw new InvalidQuestionException("QUES-001", "Entered question uuid does not exist");
     }
+    // Compare the userId to check if the user trying to edit question is the owner of the
+    // question
+    Integer questionOwnerId = questionByUuid.getUserEntity().getId();
+    if (!user.getId().equals(questionOwnerId)) {
+      throw new AuthorizationFailedException(
+          "ATHR-003", "Only the question owner can edit the question");
+    }
+    questionByUuid.setContent(content);
+    resourceVersions.questionsChanged(questionByUuid.getUserEntity().getUuid());
+    // Answer listings show the question content
+    resourceVersions.answersChanged(questionByUuid.getUuid());
+    contentSearchIndex.questionSaved(questionByUuid.getId(), content);
+    return questionDao.editQuestion(questionByUuid);
   }
 
   /**
    * Service method to get all questions posted by a user
    *
    * @param userId
-   * @param accessToken
    * @return list of all posted questions by user
-   * @throws AuthorizationFailedException
    * @throws UserNotFoundException
    */
-  public List<QuestionEntity> getAllQuestionsByUser(final String userId, final String accessToken)
-      throws AuthorizationFailedException, UserNotFoundException {
-    UserAuthEntity userAuthEntity = userAuthDao.getUserAuthByToken(accessToken);
-    if (userAuthEntity == null) {
-      throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-    } else if (userAuthEntity.getLogoutAt() != null) {
-      throw new AuthorizationFailedException(
-          "ATHR-002",
-          "User is signed out.Sign in first to get all questions posted by a specific user");
-    }
+  public List<QuestionSummary> getAllQuestionsByUser(final String userId)
+      throws UserNotFoundException {
+    return questionDao.getAllQuestionsByUser(getQuestionsOwner(userId));
+  }
+
+  /**
+   * Business logic to look up the user whose questions are listed
+   *
+   * @param userId
+   * @return the user
+   * @throws UserNotFoundException
+   */
+  public UserEntity getQuestionsOwner(final String userId) throws UserNotFoundException {
     UserEntity user = userDao.getUserById(userId);
     if (user == null) {
       throw new UserNotFoundException(
           "USR-001", "User with entered uuid whose question details are to be seen does not exist");
     }
-    return questionDao.getAllQuestionsByUser(user);
+    return user;
+  }
+
+  /**
+   * Business logic to stream all questions, newest first, without loading them all in memory
+   *
+   * @param consumer : receives the questions one at a time
+   */
+  @Transactional(readOnly = true)
+  public void streamAllQuestions(final Consumer<? super QuestionSummary> consumer) {
+    questionDao.streamAllQuestions(consumer);
+  }
+
+  /**
+   * Business logic to stream the questions posted by a user without loading them all in memory
+   *
+   * @param user : user returned by {@link #getQuestionsOwner(String)}
+   * @param consumer : receives the questions one at a time
+   */
+  @Transactional(readOnly = true)
+  public void streamQuestionsByUser(
+      final UserEntity user, final Consumer<? super QuestionSummary> consumer) {
+    questionDao.streamQuestionsByUser(user, consumer);
   }
 
+
   /**
-   * Business logic to authorize user and delete question
+   * Business logic to check whether user is authorized to delete question and delete it
    *
-   * @param accessToken
+   * @param user
    * @param questionId
    * @return deleted question
    * @throws AuthorizationFailedException
    * @throws InvalidQuestionException
    */
   @Transactional(propagation = Propagation.REQUIRED)
-  public QuestionEntity deleteQuestion(final String accessToken, final String questionId)
+  public QuestionEntity deleteQuestion(final AuthenticatedUser user, final String questionId)
       throws AuthorizationFailedException, InvalidQuestionException {
-    UserAuthEntity userAuthEntity = userAuthDao.getUserAuthByToken(accessToken);
-    if (userAuthEntity == null) {
-      throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-    } else if (userAuthEntity.getLogoutAt() != null) {
-      throw new AuthorizationFailedException(
-          "ATHR-002", "User is signed out.Sign in first to delete the question");
-    }
-    QuestionEntity questionEntity = questionDao.getQuestionByUuid(questionId);
+    QuestionEntity questionEntity = questionDao.getQuestionWithOwnerByUuid(questionId);
     if (questionEntity == null) {
       throw new InvalidQuestionException("QUES-001", "Entered question uuid does not exist");
     }
-    if (!questionEntity.getUserEntity().getUuid().equals(userAuthEntity.getUserEntity().getUuid())
-        && !userAuthEntity.getUserEntity().getRole().equals("admin")) {
+    if (!questionEntity.getUserEntity().getUuid().equals(user.getUuid()) && !user.isAdmin()) {
       throw new AuthorizationFailedException(
           "ATHR-003", "Only the question owner or admin can delete the question");
     }
 
+    // Look up the answers deleted with the question before the question is removed
+    contentSearchIndex.questionDeleted(questionEntity);
     questionDao.deleteQuestion(questionEntity);
+    resourceVersions.questionsChanged(questionEntity.getUserEntity().getUuid());
+    resourceVersions.answersChanged(questionEntity.getUuid());
     return questionEntity;
   }
+
+  /** A question of a bulk request that passed validation, with the uuid it will be created with. */
+  private static final class PendingQuestion {
+
+    private final int position;
+
+    private final UUID uuid;
+
+    private final String content;
+
+    private PendingQuestion(final int position, final UUID uuid, final String content) {
+      this.position = position;
+      this.uuid = uuid;
+      this.content = content;
+    }
+  }
 }
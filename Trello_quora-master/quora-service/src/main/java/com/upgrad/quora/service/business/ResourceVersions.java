@@ -0,0 +1,133 @@
+package com.upgrad.quora.service.business;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version numbers of the resources clients read repeatedly: the listing of all questions, the
+ * questions posted by each user, the answers to each question and each user profile. The write
+ * paths bump the versions once their transaction commits, so anything keyed by a version read
+ * before a resource was loaded, such as cached listings and ETags, is never reused after the change
+ * is visible.
+ *
+ * <p>Versions are held in memory and start again from zero on every start, which is what {@link
+ * #getBootEpoch()} tells apart. Deleting a user bumps a generation shared by the answers to every
+ * question, since the answers removed with the user are not looked up.
+ */
+@Component
+public class ResourceVersions {
+
+  private final long bootEpoch = System.currentTimeMillis();
+
+  private final AtomicLong allQuestions = new AtomicLong();
+
+  private final Map<UUID, AtomicLong> questionsByUser = new ConcurrentHashMap<>();
+
+  private final Map<UUID, AtomicLong> answersByQuestion = new ConcurrentHashMap<>();
+
+  private final AtomicLong answersGeneration = new AtomicLong();
+
+  private final Map<UUID, AtomicLong> userProfiles = new ConcurrentHashMap<>();
+
+  /** @return start time of this instance in epoch milliseconds, distinguishing its versions */
+  public long getBootEpoch() {
+    return bootEpoch;
+  }
+
+  /** @return current version of the listing of all questions */
+  public long getAllQuestionsVersion() {
+    return allQuestions.get();
+  }
+
+  /**
+   * @param userUuid : uuid of the user whose questions are listed
+   * @return current version of the listing of the questions posted by the user
+   */
+  public long getQuestionsByUserVersion(final UUID userUuid) {
+    return get(questionsByUser, userUuid);
+  }
+
+  /**
+   * @param questionUuid : uuid of the question whose answers are listed
+   * @return current version of the listing of the answers to the question
+   */
+  public long getAnswersToQuestionVersion(final UUID questionUuid) {
+    // Both counters only grow, so their sum changes whenever either does
+    return get(answersByQuestion, questionUuid) + answersGeneration.get();
+  }
+
+  /**
+   * @param userUuid : uuid of the user
+   * @return current version of the profile of the user
+   */
+  public long getUserProfileVersion(final UUID userUuid) {
+    return get(userProfiles, userUuid);
+  }
+
+  /**
+   * Bump the versions of the listings that contain the questions of a user.
+   *
+   * @param userUuid : uuid of the user whose questions were created, edited or deleted
+   */
+  public void questionsChanged(final UUID userUuid) {
+    afterCommit(
+        () -> {
+          increment(questionsByUser, userUuid);
+          allQuestions.incrementAndGet();
+        });
+  }
+
+  /**
+   * Bump the version of the listing of the answers to a question.
+   *
+   * @param questionUuid : uuid of the question whose answers, or whose content, changed
+   */
+  public void answersChanged(final UUID questionUuid) {
+    afterCommit(() -> increment(answersByQuestion, questionUuid));
+  }
+
+  /**
+   * Bump the versions of everything a deleted user's rows cascaded to: the profile, the questions
+   * of the user and the answers the user posted to any question.
+   *
+   * @param userUuid : uuid of the deleted user
+   */
+  public void userDeleted(final UUID userUuid) {
+    questionsChanged(userUuid);
+    afterCommit(
+        () -> {
+          increment(userProfiles, userUuid);
+          answersGeneration.incrementAndGet();
+        });
+  }
+
+  private static long get(final Map<UUID, AtomicLong> versions, final UUID key) {
+    final AtomicLong version = versions.get(key);
+    return version == null ? 0L : version.get();
+  }
+
+  private static void increment(final Map<UUID, AtomicLong> versions, final UUID key) {
+    versions.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+  }
+
+  /** Runs the bump after the surrounding transaction commits, or immediately when there is none. */
+  private static void afterCommit(final Runnable bump) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+              bump.run();
+            }
+          });
+    } else {
+      bump.run();
+    }
+  }
+}
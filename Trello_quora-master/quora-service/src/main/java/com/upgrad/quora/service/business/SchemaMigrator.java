@@ -0,0 +1,212 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.dao.SchemaHistoryDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Brings the database schema up to date at startup with the versioned scripts of quora-db, found
+ * at quora.migration.locations and named NNN_description.sql. Every script is applied once, in
+ * version order and in its own transaction, and recorded in SCHEMA_HISTORY with the SHA-256 of
+ * its content. Startup fails if an applied script has since been modified or removed, so the
+ * schema of every environment is known from the scripts alone. Databases created with quora.sql
+ * start from the baseline version recorded there.
+ *
+ * <p>The schema uses generated columns, so startup fails on servers older than PostgreSQL 12
+ * before any script is applied.
+ *
+ * <p>Runs before the EntityManagerFactory is created, see {@link
+ * com.upgrad.quora.service.ServiceConfiguration}, and therefore uses its own DataSource
+ * transactions. Nodes starting together serialize on an advisory lock.
+ */
+@Component
+public class SchemaMigrator {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SchemaMigrator.class);
+
+  private static final Pattern SCRIPT_NAME = Pattern.compile("(\\d+)_(\\w+)\\.sql");
+
+  /** server_version_num of PostgreSQL 12.0, the first release with generated columns. */
+  private static final int MINIMUM_SERVER_VERSION = 120000;
+
+  @Autowired private SchemaHistoryDao schemaHistoryDao;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final boolean enabled;
+
+  private final String locations;
+
+  public SchemaMigrator(
+      final DataSource dataSource,
+      @Value("${quora.migration.enabled:true}") final boolean enabled,
+      @Value("${quora.migration.locations:classpath*:sql/upgrade/*.sql}") final String locations) {
+    this.transactionTemplate =
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    this.enabled = enabled;
+    this.locations = locations;
+  }
+
+  /** A migration script found on the classpath. */
+  private static final class Migration {
+
+    private final int version;
+
+    private final String description;
+
+    private final String checksum;
+
+    private final Resource script;
+
+    private Migration(
+        final int version, final String description, final String checksum, final Resource script) {
+      this.version = version;
+      this.description = description;
+      this.checksum = checksum;
+      this.script = script;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%03d_%s", version, description);
+    }
+  }
+
+  @PostConstruct
+  void migrate() throws IOException {
+    if (!enabled) {
+      return;
+    }
+    final Map<Integer, Migration> migrations = findMigrations();
+    transactionTemplate.execute(
+        status -> {
+          final int serverVersion = schemaHistoryDao.getServerVersionNum();
+          if (serverVersion < MINIMUM_SERVER_VERSION) {
+            throw new IllegalStateException(
+                "PostgreSQL 12 or later is required, the server_version_num of the database is "
+                    + serverVersion);
+          }
+          schemaHistoryDao.createSchemaHistory();
+          return null;
+        });
+
+    int applied = 0;
+    for (Migration migration : migrations.values()) {
+      final long start = System.nanoTime();
+      final Boolean executed =
+          transactionTemplate.execute(
+              status -> {
+                schemaHistoryDao.lock();
+                final Map<Integer, String> history = schemaHistoryDao.getAppliedChecksums();
+                validate(history, migrations);
+                if (history.containsKey(migration.version)
+                    || baseline(history) >= migration.version) {
+                  return false;
+                }
+                schemaHistoryDao.execute(migration.script);
+                schemaHistoryDao.recordApplied(
+                    migration.version, migration.description, migration.checksum);
+                return true;
+              });
+      if (Boolean.TRUE.equals(executed)) {
+        applied++;
+        LOG.info(
+            "Applied migration {} in {} ms", migration, (System.nanoTime() - start) / 1_000_000);
+      }
+    }
+    LOG.info("Schema is up to date, {} migrations applied", applied);
+  }
+
+  private Map<Integer, Migration> findMigrations() throws IOException {
+    final Map<Integer, Migration> migrations = new TreeMap<>();
+    for (Resource script : new PathMatchingResourcePatternResolver().getResources(locations)) {
+      final Matcher matcher = SCRIPT_NAME.matcher(script.getFilename());
+      if (!matcher.matches()) {
+        throw new IllegalStateException(
+            "Migration script " + script.getFilename() + " is not named NNN_description.sql");
+      }
+      final Migration migration =
+          new Migration(
+              Integer.parseInt(matcher.group(1)), matcher.group(2), checksum(script), script);
+      final Migration duplicate = migrations.put(migration.version, migration);
+      if (duplicate != null) {
+        throw new IllegalStateException(
+            "Migrations " + duplicate + " and " + migration + " have the same version");
+      }
+    }
+    return migrations;
+  }
+
+  /** Fail if an applied script has been modified, or removed, since it was applied. */
+  private static void validate(
+      final Map<Integer, String> history, final Map<Integer, Migration> migrations) {
+    for (Map.Entry<Integer, String> applied : history.entrySet()) {
+      if (applied.getValue() == null) {
+        continue;
+      }
+      final Migration migration = migrations.get(applied.getKey());
+      if (migration == null) {
+        throw new IllegalStateException(
+            "Applied migration " + applied.getKey() + " is missing from the migration scripts");
+      }
+      if (!migration.checksum.equals(applied.getValue())) {
+        throw new IllegalStateException(
+            "Migration " + migration + " has been modified since it was applied");
+      }
+    }
+  }
+
+  /** @return highest baseline version, or 0 if the schema was built by the scripts alone */
+  private static int baseline(final Map<Integer, String> history) {
+    final List<Integer> baselines = new ArrayList<>();
+    history.forEach(
+        (version, checksum) -> {
+          if (checksum == null) {
+            baselines.add(version);
+          }
+        });
+    return baselines.isEmpty() ? 0 : baselines.get(baselines.size() - 1);
+  }
+
+  /** SHA-256 of the script, ignoring the line separators of the checkout it was built from. */
+  private static String checksum(final Resource script) {
+    try (InputStream in = script.getInputStream()) {
+      final String content =
+          StreamUtils.copyToString(in, StandardCharsets.UTF_8).replace("\r\n", "\n");
+      final byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+      final StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,172 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.AnswerSearchSummary;
+import com.upgrad.quora.service.common.Bm25Index;
+import com.upgrad.quora.service.common.KeysetPage;
+import com.upgrad.quora.service.common.QuestionSummary;
+import com.upgrad.quora.service.common.SearchCursor;
+import com.upgrad.quora.service.common.SearchHit;
+import com.upgrad.quora.service.dao.AnswerDao;
+import com.upgrad.quora.service.dao.QuestionDao;
+import com.upgrad.quora.service.exception.InvalidRequestParameterException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Full-text search over the question contents and answer texts. Depending on quora.search.backend
+ * the hits are ranked with BM25 by the in-process {@link ContentSearchIndex} ("memory") or with
+ * ts_rank by PostgreSQL over the generated tsvector columns ("database"), which keeps no state in
+ * the application and so suits deployments with several nodes. Either way the hits are returned
+ * best first, one page at a time, and a query matches the rows containing any of its words.
+ */
+@Service
+public class SearchService {
+
+  @Autowired private ContentSearchIndex contentSearchIndex;
+
+  @Autowired private QuestionDao questionDao;
+
+  @Autowired private AnswerDao answerDao;
+
+  @Value("${quora.pagination.default-limit:20}")
+  private int defaultLimit;
+
+  @Value("${quora.pagination.max-limit:100}")
+  private int maxLimit;
+
+  @Value("${quora.search.max-query-terms:16}")
+  private int maxQueryTerms;
+
+  /**
+   * Business logic to return one page of the questions matching a full-text query
+   *
+   * @param query : words to search for in the question contents
+   * @param cursor : cursor returned with the previous page, null for the first page
+   * @param limit : maximum number of questions in the page, null for the default
+   * @return page of questions and the cursor of the next page
+   * @throws InvalidRequestParameterException : if the query, cursor or limit is invalid
+   */
+  public KeysetPage<QuestionSummary> searchQuestions(
+      final String query, final String cursor, final Integer limit)
+      throws InvalidRequestParameterException {
+    final int pageSize = pageSize(limit);
+    final List<String> terms = queryTerms(query);
+    final SearchCursor after = decode(cursor);
+
+    // Fetch one extra hit to find out whether there is a next page
+    final List<SearchHit<QuestionSummary>> hits;
+    if (contentSearchIndex.isEnabled()) {
+      hits =
+          load(
+              contentSearchIndex.searchQuestions(terms, after, pageSize + 1),
+              questionDao::getQuestionsByIds,
+              QuestionSummary::getId);
+    } else {
+      hits = questionDao.searchQuestions(terms, after, pageSize + 1);
+    }
+    return page(hits, pageSize);
+  }
+
+  /**
+   * Business logic to return one page of the answers matching a full-text query
+   *
+   * @param query : words to search for in the answer texts
+   * @param cursor : cursor returned with the previous page, null for the first page
+   * @param limit : maximum number of answers in the page, null for the default
+   * @return page of answers and the cursor of the next page
+   * @throws InvalidRequestParameterException : if the query, cursor or limit is invalid
+   */
+  public KeysetPage<AnswerSearchSummary> searchAnswers(
+      final String query, final String cursor, final Integer limit)
+      throws InvalidRequestParameterException {
+    final int pageSize = pageSize(limit);
+    final List<String> terms = queryTerms(query);
+    final SearchCursor after = decode(cursor);
+
+    final List<SearchHit<AnswerSearchSummary>> hits;
+    if (contentSearchIndex.isEnabled()) {
+      hits =
+          load(
+              contentSearchIndex.searchAnswers(terms, after, pageSize + 1),
+              answerDao::getAnswerSearchSummariesByIds,
+              AnswerSearchSummary::getId);
+    } else {
+      hits = answerDao.searchAnswers(terms, after, pageSize + 1);
+    }
+    return page(hits, pageSize);
+  }
+
+  private int pageSize(final Integer limit) throws InvalidRequestParameterException {
+    final int pageSize = limit != null ? limit : defaultLimit;
+    if (pageSize < 1 || pageSize > maxLimit) {
+      throw new InvalidRequestParameterException(
+          "REQ-001", "Limit must be between 1 and " + maxLimit);
+    }
+    return pageSize;
+  }
+
+  private List<String> queryTerms(final String query) throws InvalidRequestParameterException {
+    final List<String> terms = query != null ? Bm25Index.queryTerms(query, maxQueryTerms) : null;
+    if (terms == null || terms.isEmpty()) {
+      throw new InvalidRequestParameterException(
+          "REQ-001", "Search query must contain at least one word");
+    }
+    return terms;
+  }
+
+  private static SearchCursor decode(final String cursor) throws InvalidRequestParameterException {
+    if (cursor == null) {
+      return null;
+    }
+    try {
+      return SearchCursor.decode(cursor);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidRequestParameterException("REQ-001", "Entered cursor is invalid");
+    }
+  }
+
+  /**
+   * Read the rows of the in-memory hits by primary key in one query, keeping the ranking. A row
+   * deleted since it was ranked is left out.
+   */
+  private static <T> List<SearchHit<T>> load(
+      final List<SearchCursor> ranked,
+      final Function<List<Integer>, List<T>> loader,
+      final Function<T, Integer> idOf) {
+    final List<Integer> ids = new ArrayList<>(ranked.size());
+    for (SearchCursor hit : ranked) {
+      ids.add(hit.getId());
+    }
+    final Map<Integer, T> rowsById = new HashMap<>();
+    for (T row : loader.apply(ids)) {
+      rowsById.put(idOf.apply(row), row);
+    }
+    final List<SearchHit<T>> hits = new ArrayList<>(ranked.size());
+    for (SearchCursor hit : ranked) {
+      final T row = rowsById.get(hit.getId());
+      if (row != null) {
+        hits.add(new SearchHit<>(row, hit));
+      }
+    }
+    return hits;
+  }
+
+  private static <T> KeysetPage<T> page(final List<SearchHit<T>> hits, final int pageSize) {
+    final int size = Math.min(hits.size(), pageSize);
+    final List<T> items = new ArrayList<>(size);
+    for (SearchHit<T> hit : hits.subList(0, size)) {
+      items.add(hit.getItem());
+    }
+    if (hits.size() <= pageSize) {
+      return new KeysetPage<>(items, null);
+    }
+    return new KeysetPage<>(items, hits.get(pageSize - 1).getCursor().encode());
+  }
+}
@@ -0,0 +1,99 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.ConcurrentLruCache;
+import com.upgrad.quora.service.common.TokenBucket;
+import com.upgrad.quora.service.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Throttles signin attempts per username and per client address with token buckets, so that brute
+ * force traffic is turned away before it costs a users lookup and a password hash. Buckets live in
+ * bounded LRU caches, so memory stays fixed and the buckets evicted first are the ones idle longest.
+ */
+@Component
+public class SigninRateLimiter implements MeterBinder {
+
+  private final ConcurrentLruCache<String, TokenBucket> userBuckets;
+
+  private final ConcurrentLruCache<String, TokenBucket> addressBuckets;
+
+  private final int userCapacity;
+
+  private final double userRefillPerSecond;
+
+  private final int addressCapacity;
+
+  private final double addressRefillPerSecond;
+
+  private Counter userRejections;
+
+  private Counter addressRejections;
+
+  public SigninRateLimiter(
+      @Value("${quora.auth.signin-throttle.maximum-keys:100000}") final int maximumKeys,
+      @Value("${quora.auth.signin-throttle.username.capacity:10}") final int userCapacity,
+      @Value("${quora.auth.signin-throttle.username.refill-per-minute:5}")
+          final double userRefillPerMinute,
+      @Value("${quora.auth.signin-throttle.address.capacity:50}") final int addressCapacity,
+      @Value("${quora.auth.signin-throttle.address.refill-per-minute:30}")
+          final double addressRefillPerMinute) {
+    this.userCapacity = userCapacity;
+    this.userRefillPerSecond = userRefillPerMinute / 60d;
+    this.addressCapacity = addressCapacity;
+    this.addressRefillPerSecond = addressRefillPerMinute / 60d;
+    this.userBuckets = new ConcurrentLruCache<>(maximumKeys, 0);
+    this.addressBuckets = new ConcurrentLruCache<>(maximumKeys, 0);
+  }
+
+  /**
+   * Take one signin attempt from the buckets of the username and of the client address. A token is
+   * taken from both buckets or from neither.
+   *
+   * @param username : username the client is signing in as
+   * @param clientAddress : address of the client, resolved from the forwarded headers of trusted
+   *     proxies (server.use-forward-headers)
+   * @throws TooManyRequestsException : if either bucket is empty
+   */
+  public void acquire(final String username, final String clientAddress)
+      throws TooManyRequestsException {
+    final TokenBucket addressBucket =
+        addressBuckets.computeIfAbsent(
+            clientAddress, key -> new TokenBucket(addressCapacity, addressRefillPerSecond));
+    if (!addressBucket.tryConsume()) {
+      if (addressRejections != null) {
+        addressRejections.increment();
+      }
+      throw new TooManyRequestsException(
+          "ATH-003", "Too many signin attempts from this address, try again later");
+    }
+    final TokenBucket userBucket =
+        userBuckets.computeIfAbsent(
+            username, key -> new TokenBucket(userCapacity, userRefillPerSecond));
+    if (!userBucket.tryConsume()) {
+      // The attempt is turned away, so it does not count against the address
+      addressBucket.refund();
+      if (userRejections != null) {
+        userRejections.increment();
+      }
+      throw new TooManyRequestsException(
+          "ATH-003", "Too many signin attempts for this username, try again later");
+    }
+  }
+
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    userRejections = registry.counter("quora.auth.signin.throttled", "key", "username");
+    addressRejections = registry.counter("quora.auth.signin.throttled", "key", "address");
+    Gauge.builder("quora.auth.signin.buckets", userBuckets, ConcurrentLruCache::size)
+        .tag("key", "username")
+        .register(registry);
+    Gauge.builder("quora.auth.signin.buckets", addressBuckets, ConcurrentLruCache::size)
+        .tag("key", "address")
+        .register(registry);
+  }
+}
@@ -0,0 +1,190 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.BloomFilter;
+import com.upgrad.quora.service.dao.UserAuthDao;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Record of revoked access tokens used by stateless token verification. Signed out sessions are
+ * tracked by token id and deleted users by user uuid; a Bloom filter answers the common "not
+ * revoked" case without touching the exact maps.
+ *
+ * <p>The database is the shared record: signed out sessions are read from user_auth.logout_at and
+ * deleted users from revoked_users. Every quora.auth.revocation.refresh-millis the maps are rebuilt
+ * from it, so a revocation made on another instance is seen within that interval, and entries whose
+ * token has expired are dropped. The Bloom filter is rebuilt with them and sized for the current
+ * number of entries, which keeps its false positive rate bounded.
+ */
+@Component
+public class TokenRevocationList implements MeterBinder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TokenRevocationList.class);
+
+  @Autowired private UserAuthDao userAuthDao;
+
+  private final boolean enabled;
+
+  private final int expectedEntries;
+
+  private volatile Revocations revocations;
+
+  // Held while revoking and while refresh copies the current revocations into the next ones, so a
+  // revocation is never made on a snapshot that has already been copied
+  private final Object lock = new Object();
+
+  public TokenRevocationList(
+      @Value("${quora.auth.token-verification:database}") final String tokenVerification,
+      @Value("${quora.auth.revocation.expected-entries:100000}") final int expectedEntries) {
+    this.enabled = AuthorizationService.STATELESS_VERIFICATION.equals(tokenVerification);
+    this.expectedEntries = expectedEntries;
+    this.revocations = new Revocations(expectedEntries);
+  }
+
+  @PostConstruct
+  void load() {
+    if (!enabled) {
+      return;
+    }
+    refresh();
+    LOG.info(
+        "Loaded {} revoked sessions and {} revoked users",
+        revocations.sessions.size(),
+        revocations.users.size());
+  }
+
+  /**
+   * Rebuild the revocations from the database, keeping the local ones that are not expired yet in
+   * case they are not committed.
+   */
+  @Scheduled(
+      initialDelayString = "${quora.auth.revocation.refresh-millis:5000}",
+      fixedDelayString = "${quora.auth.revocation.refresh-millis:5000}")
+  public void refresh() {
+    if (!enabled) {
+      return;
+    }
+    final ZonedDateTime now = ZonedDateTime.now();
+    userAuthDao.deleteExpiredRevokedUsers(now);
+    final Map<UUID, ZonedDateTime> sessions = userAuthDao.getRevokedSessions(now);
+    final Map<UUID, ZonedDateTime> users = userAuthDao.getRevokedUsers(now);
+    final Revocations next =
+        new Revocations(
+            Math.max(
+                expectedEntries,
+                2 * (sessions.size() + users.size() + revocations.size())));
+    sessions.forEach((uuid, expiresAt) -> next.revokeSession(uuid.toString(), expiresAt));
+    users.forEach((uuid, expiresAt) -> next.revokeUser(uuid.toString(), expiresAt));
+    final long nowMillis = now.toInstant().toEpochMilli();
+    synchronized (lock) {
+      final Revocations previous = revocations;
+      previous.sessions.forEach(
+          (uuid, expiresAt) -> {
+            if (expiresAt > nowMillis) {
+              next.revoke(next.sessions, uuid, expiresAt);
+            }
+          });
+      previous.users.forEach(
+          (uuid, expiresAt) -> {
+            if (expiresAt > nowMillis) {
+              next.revoke(next.users, uuid, expiresAt);
+            }
+          });
+      revocations = next;
+    }
+  }
+
+  /**
+   * Revoke a single session.
+   *
+   * @param sessionUuid : uuid of the signed out session, which is also the token id
+   * @param expiresAt : expiry of the token
+   */
+  public void revokeSession(final String sessionUuid, final ZonedDateTime expiresAt) {
+    synchronized (lock) {
+      revocations.revokeSession(sessionUuid, expiresAt);
+    }
+  }
+
+  /**
+   * Revoke every token issued to a user, recording the revocation in the database for the other
+   * instances until the last token the user may hold has expired.
+   *
+   * @param userUuid : uuid of the deleted user
+   */
+  public void revokeUser(final String userUuid) {
+    final ZonedDateTime expiresAt =
+        ZonedDateTime.now().plus(UserAuthenticationService.SESSION_LIFETIME);
+    if (enabled) {
+      userAuthDao.createRevokedUser(UUID.fromString(userUuid), expiresAt);
+    }
+    synchronized (lock) {
+      revocations.revokeUser(userUuid, expiresAt);
+    }
+  }
+
+  /**
+   * @param sessionUuid : token id
+   * @param userUuid : subject of the token
+   * @return true if the session was signed out or its user deleted
+   */
+  public boolean isRevoked(final String sessionUuid, final String userUuid) {
+    final Revocations current = revocations;
+    return (current.filter.mightContain(sessionUuid) && current.sessions.containsKey(sessionUuid))
+        || (current.filter.mightContain(userUuid) && current.users.containsKey(userUuid));
+  }
+
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    Gauge.builder("quora.auth.revocations", this, list -> list.revocations.sessions.size())
+        .tag("type", "session")
+        .register(registry);
+    Gauge.builder("quora.auth.revocations", this, list -> list.revocations.users.size())
+        .tag("type", "user")
+        .register(registry);
+  }
+
+  /** Revoked sessions and users with the expiry of their tokens in epoch milliseconds. */
+  private static final class Revocations {
+
+    private final BloomFilter filter;
+
+    private final Map<String, Long> sessions = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> users = new ConcurrentHashMap<>();
+
+    private Revocations(final int expectedEntries) {
+      this.filter = new BloomFilter(expectedEntries, 0.01);
+    }
+
+    private int size() {
+      return sessions.size() + users.size();
+    }
+
+    private void revokeSession(final String sessionUuid, final ZonedDateTime expiresAt) {
+      revoke(sessions, sessionUuid, expiresAt.toInstant().toEpochMilli());
+    }
+
+    private void revokeUser(final String userUuid, final ZonedDateTime expiresAt) {
+      revoke(users, userUuid, expiresAt.toInstant().toEpochMilli());
+    }
+
+    private void revoke(final Map<String, Long> entries, final String uuid, final long expiresAt) {
+      filter.put(uuid);
+      entries.merge(uuid, expiresAt, Math::max);
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.UnexpectedException;
+import com.upgrad.quora.service.dao.UserAuthDao;
+import com.upgrad.quora.service.entity.UserAuthEntity;
+import com.upgrad.quora.service.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group commit of new sessions. Signins hand their UserAuthEntity to a single writer thread, which
+ * waits up to quora.auth.session-writer.linger-millis for more sessions to arrive and inserts them
+ * all with one JDBC batch in one transaction. {@link #write(UserAuthEntity)} returns only once the
+ * batch holding its session has committed.
+ */
+@Component
+public class UserAuthBatchWriter implements MeterBinder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(UserAuthBatchWriter.class);
+
+  @Autowired private UserAuthDao userAuthDao;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  private final boolean enabled;
+
+  private final int maxBatchSize;
+
+  private final long lingerNanos;
+
+  private final long timeoutMillis;
+
+  private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+
+  private Thread writer;
+
+  private volatile boolean running = true;
+
+  private DistributionSummary batchSizes;
+
+  public UserAuthBatchWriter(
+      @Value("${quora.auth.session-writer.enabled:true}") final boolean enabled,
+      @Value("${quora.auth.session-writer.max-batch-size:100}") final int maxBatchSize,
+      @Value("${quora.auth.session-writer.linger-millis:5}") final long lingerMillis,
+      @Value("${quora.auth.session-writer.timeout-millis:5000}") final long timeoutMillis) {
+    this.enabled = enabled;
+    this.maxBatchSize = maxBatchSize;
+    this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  @PostConstruct
+  void start() {
+    if (!enabled) {
+      return;
+    }
+    writer = new Thread(this::run, "user-auth-batch-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    running = false;
+    if (writer != null) {
+      writer.interrupt();
+      writer.join(timeoutMillis);
+    }
+  }
+
+  /**
+   * Insert a new session and wait until it has been committed.
+   *
+   * @param userAuthEntity : session to insert
+   * @throws ServiceUnavailableException : if the session was not committed in time
+   * @throws IllegalStateException : if the writer has been stopped
+   */
+  public void write(final UserAuthEntity userAuthEntity) throws ServiceUnavailableException {
+    if (!enabled) {
+      transactionTemplate.execute(status -> userAuthDao.createAuthToken(userAuthEntity));
+      return;
+    }
+    if (!running) {
+      throw new IllegalStateException("The session writer has been stopped");
+    }
+    final PendingWrite pendingWrite = new PendingWrite(userAuthEntity);
+    queue.add(pendingWrite);
+    // Stopped meanwhile: the writer may have drained the queue for the last time already
+    if (!running && queue.remove(pendingWrite)) {
+      throw new IllegalStateException("The session writer has been stopped");
+    }
+    try {
+      pendingWrite.committed.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      throw new ServiceUnavailableException(
+          "SVC-001", "Server is busy authenticating other users, try again later");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new UnexpectedException(GenericErrorCode.GEN_001, e);
+    } catch (ExecutionException e) {
+      throw new UnexpectedException(GenericErrorCode.GEN_001, e.getCause());
+    }
+  }
+
+  private void run() {
+    final List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+    while (running || !queue.isEmpty()) {
+      try {
+        final PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        final long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < maxBatchSize) {
+          final PendingWrite next =
+              queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+      } catch (InterruptedException e) {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+      }
+      if (!batch.isEmpty()) {
+        flush(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  private void flush(final List<PendingWrite> batch) {
+    if (batchSizes != null) {
+      batchSizes.record(batch.size());
+    }
+    try {
+      insert(batch);
+      batch.forEach(pendingWrite -> pendingWrite.committed.complete(null));
+    } catch (RuntimeException batchFailure) {
+      // Retry one by one so that a single bad row does not fail every signin in the batch
+      LOG.warn("Batch insert of {} sessions failed, retrying individually", batch.size());
+      for (final PendingWrite pendingWrite : batch) {
+        try {
+          insert(Collections.singletonList(pendingWrite));
+          pendingWrite.committed.complete(null);
+        } catch (RuntimeException e) {
+          pendingWrite.committed.completeExceptionally(e);
+        }
+      }
+    }
+  }
+
+  private void insert(final List<PendingWrite> batch) {
+    final List<UserAuthEntity> userAuthEntities = new ArrayList<>(batch.size());
+    batch.forEach(pendingWrite -> userAuthEntities.add(pendingWrite.userAuthEntity));
+    transactionTemplate.execute(
+        status -> {
+          userAuthDao.createAuthTokens(userAuthEntities);
+          return null;
+        });
+  }
+
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    batchSizes = registry.summary("quora.auth.session.batch.size");
+    registry.gauge("quora.auth.session.queue.depth", queue, BlockingQueue::size);
+  }
+
+  private static final class PendingWrite {
+    private final UserAuthEntity userAuthEntity;
+    private final CompletableFuture<Void> committed = new CompletableFuture<>();
+
+    private PendingWrite(final UserAuthEntity userAuthEntity) {
+      this.userAuthEntity = userAuthEntity;
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.ConcurrentLruCache;
+import com.upgrad.quora.service.common.HierarchicalTimingWheel;
+import com.upgrad.quora.service.dao.UserAuthDao;
+import com.upgrad.quora.service.entity.UserAuthEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process cache of user sessions keyed by access token, sitting in front of {@link
+ * UserAuthDao#getUserAuthByToken(String)} so that authenticated reads do not need a database round
+ * trip. Entries are bounded in number and expire after a configurable time to live; signout and
+ * user deletion invalidate them explicitly.
+ *
+ * <p>Every cached session is also scheduled on a {@link HierarchicalTimingWheel} at its expiresAt.
+ * When the deadline passes the session is marked expired and dropped from the cache, so the auth
+ * path rejects expired tokens with a flag check instead of comparing clocks on every request. A
+ * session that is already past expiresAt when loaded is returned marked expired and not cached. A
+ * session leaving the cache in any other way cancels its timeout, so the wheel never holds more
+ * timeouts than the cache holds sessions.
+ */
+@Component
+public class UserAuthTokenCache implements MeterBinder {
+
+  @Autowired private UserAuthDao userAuthDao;
+
+  private final ConcurrentLruCache<String, UserAuthEntity> cache;
+
+  private final HierarchicalTimingWheel<String> expiryWheel;
+
+  private final Map<String, HierarchicalTimingWheel.Timeout<String>> scheduledExpiries =
+      new ConcurrentHashMap<>();
+
+  private Counter expirations;
+
+  public UserAuthTokenCache(
+      @Value("${quora.auth.token-cache.maximum-size:10000}") final int maximumSize,
+      @Value("${quora.auth.token-cache.time-to-live-seconds:300}") final long timeToLiveSeconds,
+      @Value("${quora.auth.token-cache.expiry-tick-millis:1000}") final long expiryTickMillis) {
+    this.cache =
+        new ConcurrentLruCache<>(
+            maximumSize, timeToLiveSeconds * 1000L, (token, session) -> cancelExpiry(token));
+    this.expiryWheel =
+        new HierarchicalTimingWheel<>(expiryTickMillis, 4, System.currentTimeMillis());
+  }
+
+  /**
+   * Get the session for the access token, loading it from the database on a cache miss.
+   *
+   * @param accessToken : access token to authenticate
+   * @return session details or null if the token is unknown
+   */
+  public UserAuthEntity getUserAuthByToken(final String accessToken) {
+    UserAuthEntity userAuthEntity = cache.get(accessToken);
+    if (userAuthEntity == null) {
+      userAuthEntity = userAuthDao.getUserAuthByToken(accessToken);
+      if (userAuthEntity != null) {
+        final ZonedDateTime expiresAt = userAuthEntity.getExpiresAt();
+        if (!expiresAt.isAfter(ZonedDateTime.now())) {
+          userAuthEntity.markExpired();
+        } else {
+          cache.put(accessToken, userAuthEntity);
+          final long deadline = expiresAt.toInstant().toEpochMilli();
+          scheduledExpiries.computeIfAbsent(
+              accessToken, token -> expiryWheel.schedule(token, deadline));
+        }
+      }
+    }
+    return userAuthEntity;
+  }
+
+  /** Advance the expiry wheel, dropping the cached sessions that expired since the last tick. */
+  @Scheduled(fixedDelayString = "${quora.auth.token-cache.expiry-tick-millis:1000}")
+  public void expireSessions() {
+    expiryWheel.advance(System.currentTimeMillis(), this::expire);
+  }
+
+  private void expire(final String accessToken) {
+    scheduledExpiries.remove(accessToken);
+    final UserAuthEntity userAuthEntity = cache.remove(accessToken);
+    if (userAuthEntity != null) {
+      userAuthEntity.markExpired();
+      if (expirations != null) {
+        expirations.increment();
+      }
+    }
+  }
+
+  /**
+   * Drop the cached session of an access token, now and again once the surrounding transaction
+   * commits so that a concurrent reload cannot re-cache the stale row.
+   *
+   * @param accessToken : access token whose session changed
+   */
+  public void invalidate(final String accessToken) {
+    runNowAndAfterCommit(
+        () -> {
+          cache.remove(accessToken);
+          cancelExpiry(accessToken);
+        });
+  }
+
+  /**
+   * Drop every cached session belonging to a user.
+   *
+   * @param userUuid : uuid of the user whose sessions changed
+   */
+  public void invalidateUser(final UUID userUuid) {
+    runNowAndAfterCommit(
+        () -> {
+          final List<String> removedTokens = new ArrayList<>();
+          cache.removeIf(
+              (token, userAuthEntity) -> {
+                if (userUuid.equals(userAuthEntity.getUserEntity().getUuid())) {
+                  removedTokens.add(token);
+                  return true;
+                }
+                return false;
+              });
+          removedTokens.forEach(this::cancelExpiry);
+        });
+  }
+
+  private void cancelExpiry(final String accessToken) {
+    final HierarchicalTimingWheel.Timeout<String> timeout = scheduledExpiries.remove(accessToken);
+    if (timeout != null) {
+      timeout.cancel();
+    }
+  }
+
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    FunctionCounter.builder("quora.auth.token.cache.requests", cache, ConcurrentLruCache::hitCount)
+        .tag("result", "hit")
+        .register(registry);
+    FunctionCounter.builder("quora.auth.token.cache.requests", cache, ConcurrentLruCache::missCount)
+        .tag("result", "miss")
+        .register(registry);
+    FunctionCounter.builder(
+            "quora.auth.token.cache.evictions", cache, ConcurrentLruCache::evictionCount)
+        .register(registry);
+    Gauge.builder("quora.auth.token.cache.size", cache, ConcurrentLruCache::size)
+        .register(registry);
+    Gauge.builder("quora.auth.token.expiry.scheduled", expiryWheel, HierarchicalTimingWheel::size)
+        .register(registry);
+    expirations = registry.counter("quora.auth.token.expired");
+  }
+
+  private static void runNowAndAfterCommit(final Runnable invalidation) {
+    invalidation.run();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+              invalidation.run();
+            }
+          });
+    }
+  }
+}
@@ -5,83 +5,147 @@ import com.upgrad.quora.service.dao.UserDao;
 import com.upgrad.quora.service.entity.UserAuthEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthenticationFailedException;
+import com.upgrad.quora.service.exception.ServiceUnavailableException;
 import com.upgrad.quora.service.exception.SignOutRestrictedException;
 import com.upgrad.quora.service.exception.SignUpRestrictedException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
-import java.util.UUID;
 
 @Service
 public class UserAuthenticationService {
 
+  /** Lifetime of a session and its access token. */
+  static final Duration SESSION_LIFETIME = Duration.ofHours(8);
+
   @Autowired private UserDao userDao;
 
   @Autowired private UserAuthDao userAuthDao;
 
+  @Autowired private UserAuthTokenCache userAuthTokenCache;
+
   @Autowired private PasswordCryptographyProvider passwordCryptographyProvider;
+
+  @Autowired private JwtTokenProvider jwtTokenProvider;
+
+  @Autowired private TokenRevocationList tokenRevocationList;
+
+  @Autowired private PasswordHashingExecutor passwordHashingExecutor;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  @Autowired private UserAuthBatchWriter userAuthBatchWriter;
+
+  @Autowired private IdGenerator idGenerator;
+
+  @Autowired private UserAvailabilityIndex userAvailabilityIndex;
   /**
-   * check if user is already created add salt and encryption to password
+   * add salt and encryption to password and create the user. The password is hashed on the hashing
+   * pool outside of any transaction so that no connection is held while PBKDF2 runs. A username or
+   * email already in use is detected by the unique constraints of the single INSERT, which also
+   * holds for concurrent signups with the same username or email.
    *
    * @throws SignUpRestrictedException : throw exception if user already exists
+   * @throws ServiceUnavailableException : if the hashing pool is saturated
    */
-  @Transactional(propagation = Propagation.REQUIRED)
-  public UserEntity signup(UserEntity userEntity) throws SignUpRestrictedException {
-    if (isUserNameInUse(userEntity.getUserName())) {
-      throw new SignUpRestrictedException(
-          "SGR-001", "Try any other Username, this Username has already been taken");
-    }
-
-    if (isEmailInUse(userEntity.getEmail())) {
-      throw new SignUpRestrictedException(
-          "SGR-002", "This user has already been registered, try with any other emailId");
-    }
+  public UserEntity signup(UserEntity userEntity)
+      throws SignUpRestrictedException, ServiceUnavailableException {
     // Assign a UUID to the user that is being created.
-    userEntity.setUuid(UUID.randomUUID().toString());
+    userEntity.setUuid(idGenerator.nextId());
     // Assign encrypted password and salt to the user that is being created.
-    String[] encryptedText = passwordCryptographyProvider.encrypt(userEntity.getPassword());
+    final String password = userEntity.getPassword();
+    String[] encryptedText =
+        passwordHashingExecutor.execute(() -> passwordCryptographyProvider.encrypt(password));
     userEntity.setSalt(encryptedText[0]);
     userEntity.setPassword(encryptedText[1]);
-    return userDao.createUser(userEntity);
+    userEntity.setHashIterations(passwordCryptographyProvider.getIterations());
+    userEntity.setHashKeyLength(passwordCryptographyProvider.getKeyLength());
+    try {
+      return transactionTemplate.execute(
+          status -> {
+            final UserEntity createdUser = userDao.createUser(userEntity);
+            userAvailabilityIndex.userCreated(createdUser);
+            return createdUser;
+          });
+    } catch (DataIntegrityViolationException e) {
+      final String constraint = UserDao.getViolatedConstraint(e);
+      if (UserDao.USERNAME_CONSTRAINT.equals(constraint)) {
+        throw new SignUpRestrictedException(
+            "SGR-001", "Try any other Username, this Username has already been taken");
+      }
+      if (UserDao.EMAIL_CONSTRAINT.equals(constraint)) {
+        throw new SignUpRestrictedException(
+            "SGR-002", "This user has already been registered, try with any other emailId");
+      }
+      throw e;
+    }
   }
   /**
-   * the signin user method
+   * the signin user method. A password hashed with outdated parameters is transparently rehashed
+   * with the current ones once it has been verified. The new session is inserted together with
+   * those of concurrent signins and this method returns once it has been committed.
    *
    * @param username : Username that you want to signin
    * @param password : Password of user
    * @throws AuthenticationFailedException : If user not found or invalid password
+   * @throws ServiceUnavailableException : if the hashing pool is saturated
    * @return UserAuthEntity access-token and singin response.
    */
-  @Transactional(propagation = Propagation.REQUIRED)
   public UserAuthEntity signin(final String username, final String password)
-      throws AuthenticationFailedException {
+      throws AuthenticationFailedException, ServiceUnavailableException {
 
     UserEntity userEntity = userDao.getUserByUserName(username);
     if (userEntity == null) {
       throw new AuthenticationFailedException("ATH-001", "This username does not exist");
     }
-    final String encryptedPassword =
-        passwordCryptographyProvider.encrypt(password, userEntity.getSalt());
-    if (!encryptedPassword.equals(userEntity.getPassword())) {
+    final String salt = userEntity.getSalt();
+    final String storedPassword = userEntity.getPassword();
+    final Integer iterations = userEntity.getHashIterations();
+    final Integer keyLength = userEntity.getHashKeyLength();
+    final boolean outdated = passwordCryptographyProvider.isOutdated(iterations, keyLength);
+    // Verify the password and, if its hash uses outdated parameters, rehash it in the same task
+    final String[] rehashed =
+        passwordHashingExecutor.execute(
+            () -> {
+              final String encryptedPassword =
+                  PasswordCryptographyProvider.encrypt(password, salt, iterations, keyLength);
+              if (!encryptedPassword.equals(storedPassword)) {
+                return null;
+              }
+              return outdated ? passwordCryptographyProvider.encrypt(password) : new String[0];
+            });
+    if (rehashed == null) {
       throw new AuthenticationFailedException("ATH-002", "Password failed");
     }
+    if (rehashed.length > 0) {
+      userEntity.setSalt(rehashed[0]);
+      userEntity.setPassword(rehashed[1]);
+      userEntity.setHashIterations(passwordCryptographyProvider.getIterations());
+      userEntity.setHashKeyLength(passwordCryptographyProvider.getKeyLength());
+      transactionTemplate.execute(
+          status -> {
+            userDao.updateUserEntity(userEntity);
+            return null;
+          });
+    }
 
-    JwtTokenProvider jwtTokenProvider = new JwtTokenProvider(encryptedPassword);
     UserAuthEntity userAuthEntity = new UserAuthEntity();
-    userAuthEntity.setUuid(UUID.randomUUID().toString());
+    userAuthEntity.setUuid(idGenerator.nextId());
     userAuthEntity.setUserEntity(userEntity);
     final ZonedDateTime now = ZonedDateTime.now();
-    final ZonedDateTime expiresAt = now.plusHours(8);
+    final ZonedDateTime expiresAt = now.plus(SESSION_LIFETIME);
     userAuthEntity.setAccessToken(
-        jwtTokenProvider.generateToken(userEntity.getUuid(), now, expiresAt));
+        jwtTokenProvider.generateToken(userAuthEntity.getUuid(), userEntity, now, expiresAt));
     userAuthEntity.setLoginAt(now);
     userAuthEntity.setExpiresAt(expiresAt);
 
-    userAuthDao.createAuthToken(userAuthEntity);
-    userDao.updateUserEntity(userEntity);
+    userAuthBatchWriter.write(userAuthEntity);
 
     return userAuthEntity;
   }
@@ -101,16 +165,9 @@ public class UserAuthenticationService {
     }
     userAuthEntity.setLogoutAt(ZonedDateTime.now());
     userAuthDao.updateUserAuth(userAuthEntity);
+    userAuthTokenCache.invalidate(accessToken);
+    tokenRevocationList.revokeSession(
+        userAuthEntity.getUuid().toString(), userAuthEntity.getExpiresAt());
     return userAuthEntity.getUserEntity();
   }
-
-  // checks whether the username exist in the database
-  private boolean isUserNameInUse(final String userName) {
-    return userDao.getUserByUserName(userName) != null;
-  }
-
-  // checks whether the email exist in the database
-  private boolean isEmailInUse(final String email) {
-    return userDao.getUserByEmail(email) != null;
-  }
 }
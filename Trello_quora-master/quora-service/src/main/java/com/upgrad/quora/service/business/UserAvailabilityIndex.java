@@ -0,0 +1,254 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.CountingBloomFilter;
+import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.entity.UserEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Answers whether a username or email is still free to signup with. Counting Bloom filters of the
+ * usernames and emails in use are built from the users table at startup and then kept up to date
+ * by signups and user deletions once they commit. Only values the filters report as possibly in
+ * use are looked up in the database, so checking a free value rarely reaches it.
+ *
+ * <p>A deletion only removes the values this instance added on signup since the filters were
+ * built: removing a value the filters never counted, such as a username taken on another
+ * instance, would decrement the counters of values that are in use and report them as free. The
+ * other deleted values stay as false positives, which the database lookup answers correctly. Every
+ * quora.user-availability.rebuild-millis the filters are rebuilt from the users table, which drops
+ * them and adds the signups made on other instances; until then a value taken there may be
+ * reported as free, and signup itself still rejects it on the unique constraints.
+ */
+@Component
+public class UserAvailabilityIndex implements MeterBinder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(UserAvailabilityIndex.class);
+
+  @Autowired private UserDao userDao;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  private final boolean enabled;
+
+  private final int expectedUsers;
+
+  private volatile Filters filters;
+
+  // Held while signups and deletions update the filters and while rebuild swaps them, so an update
+  // is never made on filters that are being replaced
+  private final Object lock = new Object();
+
+  private Counter filterAnswers;
+
+  private Counter databaseLookups;
+
+  public UserAvailabilityIndex(
+      @Value("${quora.user-availability.enabled:true}") final boolean enabled,
+      @Value("${quora.user-availability.expected-users:1000000}") final int expectedUsers) {
+    this.enabled = enabled;
+    this.expectedUsers = expectedUsers;
+  }
+
+  @PostConstruct
+  void load() {
+    rebuild();
+  }
+
+  /**
+   * Build new filters from the users table and replace the current ones, carrying over the
+   * signups made here while the rows were read.
+   */
+  @Scheduled(
+      initialDelayString = "${quora.user-availability.rebuild-millis:3600000}",
+      fixedDelayString = "${quora.user-availability.rebuild-millis:3600000}")
+  public void rebuild() {
+    if (!enabled) {
+      return;
+    }
+    final long start = System.nanoTime();
+    final Filters next = new Filters(expectedUsers);
+    final int[] count = new int[1];
+    transactionTemplate.execute(
+        status -> {
+          userDao.streamUserNamesAndEmails(
+              row -> {
+                next.userNames.put((String) row[0]);
+                next.emails.put((String) row[1]);
+                count[0]++;
+              });
+          return null;
+        });
+    synchronized (lock) {
+      final Filters previous = filters;
+      if (previous != null) {
+        // These may have committed after the rows were read; if not, they are counted twice and
+        // only leave a false positive behind once deleted
+        previous.createdUserNames.forEach(
+            (userName, createdAt) -> {
+              if (createdAt >= start) {
+                next.add(next.userNames, next.createdUserNames, userName, createdAt);
+              }
+            });
+        previous.createdEmails.forEach(
+            (email, createdAt) -> {
+              if (createdAt >= start) {
+                next.add(next.emails, next.createdEmails, email, createdAt);
+              }
+            });
+      }
+      filters = next;
+    }
+    LOG.info(
+        "Indexed the usernames and emails of {} users in {} ms",
+        count[0],
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  /**
+   * @param userName : username to check
+   * @return true if no user has the username
+   */
+  public boolean isUserNameAvailable(final String userName) {
+    if (enabled && !filters.userNames.mightContain(userName)) {
+      count(filterAnswers);
+      return true;
+    }
+    count(databaseLookups);
+    return userDao.getUserByUserName(userName) == null;
+  }
+
+  /**
+   * @param email : email to check
+   * @return true if no user has the email
+   */
+  public boolean isEmailAvailable(final String email) {
+    if (enabled && !filters.emails.mightContain(email)) {
+      count(filterAnswers);
+      return true;
+    }
+    count(databaseLookups);
+    return userDao.getUserByEmail(email) == null;
+  }
+
+  /**
+   * Record the username and email of a new user once the current transaction commits.
+   *
+   * @param user : the created user
+   */
+  public void userCreated(final UserEntity user) {
+    if (!enabled) {
+      return;
+    }
+    final String userName = user.getUserName();
+    final String email = user.getEmail();
+    afterCommit(
+        () -> {
+          final long now = System.nanoTime();
+          synchronized (lock) {
+            final Filters current = filters;
+            current.add(current.userNames, current.createdUserNames, userName, now);
+            current.add(current.emails, current.createdEmails, email, now);
+          }
+        });
+  }
+
+  /**
+   * Release the username and email of a deleted user once the current transaction commits, if
+   * they were added by a signup on this instance since the filters were built.
+   *
+   * @param user : the user being deleted
+   */
+  public void userDeleted(final UserEntity user) {
+    if (!enabled) {
+      return;
+    }
+    final String userName = user.getUserName();
+    final String email = user.getEmail();
+    afterCommit(
+        () -> {
+          synchronized (lock) {
+            final Filters current = filters;
+            current.release(current.userNames, current.createdUserNames, userName);
+            current.release(current.emails, current.createdEmails, email);
+          }
+        });
+  }
+
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    filterAnswers = registry.counter("quora.users.availability.checks", "answered-by", "filter");
+    databaseLookups =
+        registry.counter("quora.users.availability.checks", "answered-by", "database");
+  }
+
+  private static void count(final Counter counter) {
+    if (counter != null) {
+      counter.increment();
+    }
+  }
+
+  /**
+   * Filters of the usernames and emails in use, with the values signups on this instance added
+   * since they were built and the System.nanoTime of each signup.
+   */
+  private static final class Filters {
+
+    private final CountingBloomFilter userNames;
+
+    private final CountingBloomFilter emails;
+
+    private final Map<String, Long> createdUserNames = new HashMap<>();
+
+    private final Map<String, Long> createdEmails = new HashMap<>();
+
+    private Filters(final int expectedUsers) {
+      this.userNames = new CountingBloomFilter(expectedUsers, 0.01);
+      this.emails = new CountingBloomFilter(expectedUsers, 0.01);
+    }
+
+    private void add(
+        final CountingBloomFilter filter,
+        final Map<String, Long> created,
+        final String value,
+        final long createdAt) {
+      filter.put(value);
+      created.merge(value, createdAt, Math::max);
+    }
+
+    private void release(
+        final CountingBloomFilter filter, final Map<String, Long> created, final String value) {
+      if (created.remove(value) != null) {
+        filter.remove(value);
+      }
+    }
+  }
+
+  private static void afterCommit(final Runnable update) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+              update.run();
+            }
+          });
+    } else {
+      update.run();
+    }
+  }
+}
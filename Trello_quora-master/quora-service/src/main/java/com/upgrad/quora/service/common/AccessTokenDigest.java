@@ -0,0 +1,34 @@
+package com.upgrad.quora.service.common;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes the fixed-width SHA-256 digest under which access tokens are indexed in the user_auth
+ * table, so that lookups compare 32 bytes instead of a JWT of several hundred characters.
+ */
+public final class AccessTokenDigest {
+
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+
+  private static final ThreadLocal<MessageDigest> DIGEST =
+      ThreadLocal.withInitial(
+          () -> {
+            try {
+              return MessageDigest.getInstance(DIGEST_ALGORITHM);
+            } catch (NoSuchAlgorithmException e) {
+              throw new UnexpectedException(GenericErrorCode.GEN_001, e);
+            }
+          });
+
+  private AccessTokenDigest() {}
+
+  /**
+   * @param accessToken access token as sent by the client
+   * @return 32 byte SHA-256 digest of the UTF-8 encoded token
+   */
+  public static byte[] of(final String accessToken) {
+    return DIGEST.get().digest(accessToken.getBytes(StandardCharsets.UTF_8));
+  }
+}
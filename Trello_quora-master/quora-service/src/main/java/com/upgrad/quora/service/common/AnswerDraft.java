@@ -0,0 +1,22 @@
+package com.upgrad.quora.service.common;
+
+/** An answer to be created by a bulk request, with the uuid of the question it answers. */
+public final class AnswerDraft {
+
+  private final String questionUuid;
+
+  private final String answer;
+
+  public AnswerDraft(final String questionUuid, final String answer) {
+    this.questionUuid = questionUuid;
+    this.answer = answer;
+  }
+
+  public String getQuestionUuid() {
+    return questionUuid;
+  }
+
+  public String getAnswer() {
+    return answer;
+  }
+}
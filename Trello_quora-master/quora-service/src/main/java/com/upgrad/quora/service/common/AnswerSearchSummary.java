@@ -0,0 +1,42 @@
+package com.upgrad.quora.service.common;
+
+import java.util.UUID;
+
+/**
+ * The columns of an answer needed by the answer search results, which come from different questions
+ * and therefore carry the content of the question each answer replies to.
+ */
+public final class AnswerSearchSummary {
+
+  private final Integer id;
+
+  private final UUID uuid;
+
+  private final String answer;
+
+  private final String questionContent;
+
+  public AnswerSearchSummary(
+      final Integer id, final UUID uuid, final String answer, final String questionContent) {
+    this.id = id;
+    this.uuid = uuid;
+    this.answer = answer;
+    this.questionContent = questionContent;
+  }
+
+  public Integer getId() {
+    return id;
+  }
+
+  public UUID getUuid() {
+    return uuid;
+  }
+
+  public String getAnswer() {
+    return answer;
+  }
+
+  public String getQuestionContent() {
+    return questionContent;
+  }
+}
@@ -0,0 +1,28 @@
+package com.upgrad.quora.service.common;
+
+import java.util.UUID;
+
+/**
+ * The columns of an answer needed by the answer listings, selected by constructor expression
+ * queries instead of loading a managed AnswerEntity together with its question and owners. The
+ * listings render the content of the question they were requested for, so it is not repeated here.
+ */
+public final class AnswerSummary {
+
+  private final UUID uuid;
+
+  private final String answer;
+
+  public AnswerSummary(final UUID uuid, final String answer) {
+    this.uuid = uuid;
+    this.answer = answer;
+  }
+
+  public UUID getUuid() {
+    return uuid;
+  }
+
+  public String getAnswer() {
+    return answer;
+  }
+}
@@ -0,0 +1,47 @@
+package com.upgrad.quora.service.common;
+
+import java.util.UUID;
+
+/**
+ * Lightweight principal of a signed in user, resolved once per request from the access token and
+ * handed to the business services instead of the raw token.
+ */
+public final class AuthenticatedUser {
+
+  private static final String ADMIN_ROLE = "admin";
+
+  private final Integer id;
+
+  private final UUID uuid;
+
+  private final String role;
+
+  public AuthenticatedUser(final Integer id, final UUID uuid, final String role) {
+    this.id = id;
+    this.uuid = uuid;
+    this.role = role;
+  }
+
+  /** @return database id of the user */
+  public Integer getId() {
+    return id;
+  }
+
+  /** @return uuid of the user */
+  public UUID getUuid() {
+    return uuid;
+  }
+
+  public String getRole() {
+    return role;
+  }
+
+  public boolean isAdmin() {
+    return ADMIN_ROLE.equals(role);
+  }
+
+  @Override
+  public String toString() {
+    return "AuthenticatedUser{uuid=" + uuid + ", role=" + role + "}";
+  }
+}
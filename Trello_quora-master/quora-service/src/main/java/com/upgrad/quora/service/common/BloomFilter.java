@@ -0,0 +1,96 @@
+package com.upgrad.quora.service.common;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe Bloom filter of strings. {@link #mightContain(String)} never returns false for a
+ * value that was added and returns true for a value that was not added with roughly the configured
+ * false positive probability, as long as no more than the expected number of values are added.
+ */
+public class BloomFilter {
+
+  private final AtomicLongArray bits;
+
+  private final int bitCount;
+
+  private final int hashCount;
+
+  /**
+   * @param expectedInsertions number of values the filter is sized for
+   * @param falsePositiveProbability target false positive probability, for example 0.01
+   */
+  public BloomFilter(final int expectedInsertions, final double falsePositiveProbability) {
+    final long optimalBits =
+        (long)
+            Math.ceil(
+                -expectedInsertions
+                    * Math.log(falsePositiveProbability)
+                    / (Math.log(2) * Math.log(2)));
+    this.bitCount = (int) Math.max(64, Math.min(Integer.MAX_VALUE - 63, optimalBits));
+    this.hashCount =
+        Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    this.bits = new AtomicLongArray((bitCount + 63) >>> 6);
+  }
+
+  /**
+   * Add a value to the filter.
+   *
+   * @param value value to add
+   */
+  public void put(final String value) {
+    final long hash1 = hash(value);
+    final long hash2 = mix(hash1);
+    for (int i = 0; i < hashCount; i++) {
+      final int bit = index(hash1 + i * hash2);
+      final int word = bit >>> 6;
+      final long mask = 1L << bit;
+      long current;
+      do {
+        current = bits.get(word);
+        if ((current & mask) != 0) {
+          break;
+        }
+      } while (!bits.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  /**
+   * @param value value to test
+   * @return false if the value was definitely never added, true if it may have been
+   */
+  public boolean mightContain(final String value) {
+    final long hash1 = hash(value);
+    final long hash2 = mix(hash1);
+    for (int i = 0; i < hashCount; i++) {
+      final int bit = index(hash1 + i * hash2);
+      if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int index(final long combinedHash) {
+    return (int) ((combinedHash & Long.MAX_VALUE) % bitCount);
+  }
+
+  /** 64-bit FNV-1a hash of the characters of the value. */
+  static long hash(final String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  /** Murmur3 finalizer, used to derive the second hash of the double hashing scheme. */
+  static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash | 1L;
+  }
+}
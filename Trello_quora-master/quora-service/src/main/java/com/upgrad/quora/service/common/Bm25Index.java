@@ -0,0 +1,217 @@
+package com.upgrad.quora.service.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * A thread-safe in-memory inverted index of short texts keyed by int id, ranked with Okapi BM25.
+ * Documents can be added, replaced and removed at any time; the collection statistics used by the
+ * ranking are kept up to date incrementally. Searches share a read lock and updates take the write
+ * lock.
+ *
+ * <p>Results are ordered by score and then by id, both descending, and are fetched in pages that
+ * start after the {@link SearchCursor} of the last hit of the previous page.
+ */
+public class Bm25Index {
+
+  private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+  private static final double K1 = 1.2;
+
+  private static final double B = 0.75;
+
+  /** Hits ordered best first: higher score, then higher id. */
+  private static final Comparator<SearchCursor> RANKING =
+      Comparator.comparingDouble(SearchCursor::getScore)
+          .thenComparingInt(SearchCursor::getId)
+          .reversed();
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /** term -> (document id -> term frequency) */
+  private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+
+  private final Map<Integer, Document> documents = new HashMap<>();
+
+  private long totalLength;
+
+  private static final class Document {
+
+    private final String[] terms;
+
+    private final int length;
+
+    private Document(final String[] terms, final int length) {
+      this.terms = terms;
+      this.length = length;
+    }
+  }
+
+  /**
+   * Split a text into lower case terms made of letters and digits.
+   *
+   * @param text text to split
+   * @return terms in order of appearance, with repetitions
+   */
+  public static List<String> tokenize(final String text) {
+    final List<String> terms = new ArrayList<>();
+    for (String term : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+      if (!term.isEmpty()) {
+        terms.add(term);
+      }
+    }
+    return terms;
+  }
+
+  /**
+   * Split a search query into the distinct terms to look up.
+   *
+   * @param query words to search for
+   * @param maxTerms number of distinct terms taken into account, the rest of the query is ignored
+   * @return distinct terms in order of appearance
+   */
+  public static List<String> queryTerms(final String query, final int maxTerms) {
+    final Set<String> terms = new LinkedHashSet<>();
+    for (String term : tokenize(query)) {
+      if (terms.size() == maxTerms) {
+        break;
+      }
+      terms.add(term);
+    }
+    return new ArrayList<>(terms);
+  }
+
+  /**
+   * Add a document, replacing any previous text indexed under the same id.
+   *
+   * @param id document id
+   * @param text text of the document
+   */
+  public void put(final int id, final String text) {
+    final List<String> terms = tokenize(text);
+    final Map<String, Integer> frequencies = new HashMap<>();
+    for (String term : terms) {
+      frequencies.merge(term, 1, Integer::sum);
+    }
+    lock.writeLock().lock();
+    try {
+      removeLocked(id);
+      for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+        postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(id, entry.getValue());
+      }
+      documents.put(id, new Document(frequencies.keySet().toArray(new String[0]), terms.size()));
+      totalLength += terms.size();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove a document if it is indexed.
+   *
+   * @param id document id
+   */
+  public void remove(final int id) {
+    lock.writeLock().lock();
+    try {
+      removeLocked(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void removeLocked(final int id) {
+    final Document document = documents.remove(id);
+    if (document == null) {
+      return;
+    }
+    for (String term : document.terms) {
+      final Map<Integer, Integer> posting = postings.get(term);
+      posting.remove(id);
+      if (posting.isEmpty()) {
+        postings.remove(term);
+      }
+    }
+    totalLength -= document.length;
+  }
+
+  /** @return number of indexed documents */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return documents.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Rank the documents containing any term of the query and return those that follow the cursor.
+   * Only the best limit hits are kept while scoring, so the cost is linear in the number of
+   * matching postings whatever the page.
+   *
+   * @param queryTerms distinct terms returned by {@link #queryTerms(String, int)}
+   * @param after last hit of the previous page, null for the first page
+   * @param limit maximum number of hits
+   * @return hits ordered best first
+   */
+  public List<SearchCursor> search(
+      final List<String> queryTerms, final SearchCursor after, final int limit) {
+    final Map<Integer, Double> scores = new HashMap<>();
+    lock.readLock().lock();
+    try {
+      final int documentCount = documents.size();
+      if (documentCount == 0) {
+        return Collections.emptyList();
+      }
+      final double averageLength = (double) totalLength / documentCount;
+      for (String term : queryTerms) {
+        final Map<Integer, Integer> posting = postings.get(term);
+        if (posting == null) {
+          continue;
+        }
+        final double idf =
+            Math.log(1 + (documentCount - posting.size() + 0.5) / (posting.size() + 0.5));
+        for (Map.Entry<Integer, Integer> entry : posting.entrySet()) {
+          final int frequency = entry.getValue();
+          final int length = documents.get(entry.getKey()).length;
+          final double score =
+              idf
+                  * frequency
+                  * (K1 + 1)
+                  / (frequency + K1 * (1 - B + B * length / averageLength));
+          scores.merge(entry.getKey(), score, Double::sum);
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    // Min-heap on the ranking holding the best hits seen so far, worst at the head
+    final PriorityQueue<SearchCursor> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+    for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+      final SearchCursor hit = new SearchCursor(entry.getValue(), entry.getKey());
+      if (after != null && RANKING.compare(hit, after) <= 0) {
+        continue;
+      }
+      best.add(hit);
+      if (best.size() > limit) {
+        best.poll();
+      }
+    }
+    final List<SearchCursor> hits = new ArrayList<>(best);
+    hits.sort(RANKING);
+    return hits;
+  }
+}
@@ -0,0 +1,56 @@
+package com.upgrad.quora.service.common;
+
+/**
+ * Outcome of one item of a bulk creation request: either the uuid of the created row, or the code
+ * and message of the error that kept it from being created.
+ */
+public final class BulkItemResult {
+
+  private final String uuid;
+
+  private final String code;
+
+  private final String message;
+
+  private BulkItemResult(final String uuid, final String code, final String message) {
+    this.uuid = uuid;
+    this.code = code;
+    this.message = message;
+  }
+
+  /**
+   * @param uuid : uuid of the created row
+   * @return result of an item that was created
+   */
+  public static BulkItemResult created(final String uuid) {
+    return new BulkItemResult(uuid, null, null);
+  }
+
+  /**
+   * @param code : error code
+   * @param message : error message
+   * @return result of an item that was not created
+   */
+  public static BulkItemResult failed(final String code, final String message) {
+    return new BulkItemResult(null, code, message);
+  }
+
+  public boolean isCreated() {
+    return uuid != null;
+  }
+
+  /** @return uuid of the created row, or null if the item failed */
+  public String getUuid() {
+    return uuid;
+  }
+
+  /** @return error code, or null if the item was created */
+  public String getCode() {
+    return code;
+  }
+
+  /** @return error message, or null if the item was created */
+  public String getMessage() {
+    return message;
+  }
+}
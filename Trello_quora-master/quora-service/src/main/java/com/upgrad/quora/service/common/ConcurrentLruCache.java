@@ -0,0 +1,238 @@
+package com.upgrad.quora.service.common;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * A bounded, thread-safe LRU cache with optional time-to-live. Keys are spread over a fixed number
+ * of lock stripes, each an access-ordered map holding its share of the maximum size, so readers of
+ * different keys rarely contend on the same lock.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class ConcurrentLruCache<K, V> {
+
+  private static final int STRIPES = 16;
+
+  private final Stripe<K, V>[] stripes;
+
+  private final long timeToLiveNanos;
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  private final LongAdder evictions = new LongAdder();
+
+  private final BiConsumer<? super K, ? super V> onEviction;
+
+  /**
+   * @param maximumSize maximum number of entries held by the cache
+   * @param timeToLiveMillis time after which an entry expires, 0 to keep entries until evicted
+   */
+  public ConcurrentLruCache(final int maximumSize, final long timeToLiveMillis) {
+    this(maximumSize, timeToLiveMillis, (key, value) -> {});
+  }
+
+  /**
+   * @param maximumSize maximum number of entries held by the cache
+   * @param timeToLiveMillis time after which an entry expires, 0 to keep entries until evicted
+   * @param onEviction receives the entries the cache drops because they were least recently used
+   *     or expired, not those removed explicitly. It runs under a stripe lock and must therefore
+   *     be cheap and must not touch the cache
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public ConcurrentLruCache(
+      final int maximumSize,
+      final long timeToLiveMillis,
+      final BiConsumer<? super K, ? super V> onEviction) {
+    if (maximumSize < STRIPES) {
+      throw new IllegalArgumentException("maximumSize must be at least " + STRIPES);
+    }
+    this.timeToLiveNanos = timeToLiveMillis * 1_000_000L;
+    this.onEviction = onEviction;
+    this.stripes = new Stripe[STRIPES];
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe<>(maximumSize / STRIPES, this);
+    }
+  }
+
+  /**
+   * Returns the value mapped to the key, or null if there is none or it has expired.
+   *
+   * @param key cache key
+   * @return cached value or null
+   */
+  public V get(final K key) {
+    final Stripe<K, V> stripe = stripeFor(key);
+    synchronized (stripe) {
+      final Node<V> node = stripe.get(key);
+      if (node != null && !isExpired(node)) {
+        hits.increment();
+        return node.value;
+      }
+      if (node != null) {
+        stripe.remove(key);
+        evicted(key, node.value);
+      }
+    }
+    misses.increment();
+    return null;
+  }
+
+  /**
+   * Returns the value mapped to the key, creating it with the factory when absent. The factory runs
+   * under the stripe lock and must therefore be cheap and must not touch the cache.
+   *
+   * @param key cache key
+   * @param factory creates the value for a missing key
+   * @return existing or newly created value
+   */
+  public V computeIfAbsent(final K key, final Function<? super K, ? extends V> factory) {
+    final Stripe<K, V> stripe = stripeFor(key);
+    synchronized (stripe) {
+      final Node<V> node = stripe.get(key);
+      if (node != null && !isExpired(node)) {
+        hits.increment();
+        return node.value;
+      }
+      if (node != null) {
+        evicted(key, node.value);
+      }
+      misses.increment();
+      final V value = factory.apply(key);
+      stripe.put(key, new Node<>(value, System.nanoTime()));
+      return value;
+    }
+  }
+
+  /**
+   * Maps the key to the value, replacing any previous mapping.
+   *
+   * @param key cache key
+   * @param value value to be cached
+   */
+  public void put(final K key, final V value) {
+    final Stripe<K, V> stripe = stripeFor(key);
+    synchronized (stripe) {
+      stripe.put(key, new Node<>(value, System.nanoTime()));
+    }
+  }
+
+  /**
+   * Removes the mapping for the key.
+   *
+   * @param key cache key
+   * @return the removed value, or null if there was none
+   */
+  public V remove(final K key) {
+    final Stripe<K, V> stripe = stripeFor(key);
+    synchronized (stripe) {
+      final Node<V> node = stripe.remove(key);
+      return node != null ? node.value : null;
+    }
+  }
+
+  /**
+   * Removes every mapping matching the predicate. This walks the whole cache and is meant for rare
+   * bulk invalidations.
+   *
+   * @param predicate test applied to each key and value
+   */
+  public void removeIf(final BiPredicate<? super K, ? super V> predicate) {
+    for (final Stripe<K, V> stripe : stripes) {
+      synchronized (stripe) {
+        final Iterator<Map.Entry<K, Node<V>>> iterator = stripe.entrySet().iterator();
+        while (iterator.hasNext()) {
+          final Map.Entry<K, Node<V>> entry = iterator.next();
+          if (predicate.test(entry.getKey(), entry.getValue().value)) {
+            iterator.remove();
+          }
+        }
+      }
+    }
+  }
+
+  /** Removes every mapping. */
+  public void clear() {
+    for (final Stripe<K, V> stripe : stripes) {
+      synchronized (stripe) {
+        stripe.clear();
+      }
+    }
+  }
+
+  public int size() {
+    int size = 0;
+    for (final Stripe<K, V> stripe : stripes) {
+      synchronized (stripe) {
+        size += stripe.size();
+      }
+    }
+    return size;
+  }
+
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  public long missCount() {
+    return misses.sum();
+  }
+
+  public long evictionCount() {
+    return evictions.sum();
+  }
+
+  private void evicted(final K key, final V value) {
+    evictions.increment();
+    onEviction.accept(key, value);
+  }
+
+  private boolean isExpired(final Node<V> node) {
+    return timeToLiveNanos > 0 && System.nanoTime() - node.createdAt > timeToLiveNanos;
+  }
+
+  private Stripe<K, V> stripeFor(final K key) {
+    final int hash = key.hashCode();
+    return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+  }
+
+  private static final class Node<V> {
+    private final V value;
+    private final long createdAt;
+
+    private Node(final V value, final long createdAt) {
+      this.value = value;
+      this.createdAt = createdAt;
+    }
+  }
+
+  private static final class Stripe<K, V> extends LinkedHashMap<K, Node<V>> {
+    private static final long serialVersionUID = 1L;
+
+    private final int capacity;
+    private final transient ConcurrentLruCache<K, V> cache;
+
+    private Stripe(final int capacity, final ConcurrentLruCache<K, V> cache) {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+      this.cache = cache;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<K, Node<V>> eldest) {
+      if (size() > capacity) {
+        cache.evicted(eldest.getKey(), eldest.getValue().value);
+        return true;
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package com.upgrad.quora.service.common;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe Bloom filter of strings that also supports removal. Every position holds a 4-bit
+ * counter instead of a bit, sixteen to a long, so the filter takes four times the memory of a
+ * {@link BloomFilter} with the same false positive probability. A counter that reaches 15 stays
+ * there: it can no longer tell how many values share it, so removing them only leaves a false
+ * positive behind instead of a false negative.
+ */
+public class CountingBloomFilter {
+
+  private static final int COUNTER_BITS = 4;
+
+  private static final long MAX_COUNT = (1L << COUNTER_BITS) - 1;
+
+  private final AtomicLongArray counters;
+
+  private final int counterCount;
+
+  private final int hashCount;
+
+  /**
+   * @param expectedInsertions number of values the filter is sized for
+   * @param falsePositiveProbability target false positive probability, for example 0.01
+   */
+  public CountingBloomFilter(final int expectedInsertions, final double falsePositiveProbability) {
+    final long optimalCounters =
+        (long)
+            Math.ceil(
+                -expectedInsertions
+                    * Math.log(falsePositiveProbability)
+                    / (Math.log(2) * Math.log(2)));
+    this.counterCount = (int) Math.max(16, Math.min(Integer.MAX_VALUE - 15, optimalCounters));
+    this.hashCount =
+        Math.max(1, (int) Math.round((double) counterCount / expectedInsertions * Math.log(2)));
+    this.counters = new AtomicLongArray((counterCount + 15) >>> 4);
+  }
+
+  /**
+   * Add a value to the filter.
+   *
+   * @param value value to add
+   */
+  public void put(final String value) {
+    update(value, 1);
+  }
+
+  /**
+   * Remove a value from the filter. Only values that were added may be removed, otherwise values
+   * that were added may be reported as absent.
+   *
+   * @param value value to remove
+   */
+  public void remove(final String value) {
+    update(value, -1);
+  }
+
+  /**
+   * @param value value to test
+   * @return false if the value is definitely not in the filter, true if it may be
+   */
+  public boolean mightContain(final String value) {
+    final long hash1 = BloomFilter.hash(value);
+    final long hash2 = BloomFilter.mix(hash1);
+    for (int i = 0; i < hashCount; i++) {
+      final int counter = index(hash1 + i * hash2);
+      if (count(counters.get(counter >>> 4), counter) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void update(final String value, final int delta) {
+    final long hash1 = BloomFilter.hash(value);
+    final long hash2 = BloomFilter.mix(hash1);
+    for (int i = 0; i < hashCount; i++) {
+      final int counter = index(hash1 + i * hash2);
+      final int word = counter >>> 4;
+      long current;
+      do {
+        current = counters.get(word);
+        final long count = count(current, counter);
+        if (count == MAX_COUNT || (delta < 0 && count == 0)) {
+          break;
+        }
+      } while (!counters.compareAndSet(word, current, current + ((long) delta << shift(counter))));
+    }
+  }
+
+  private int index(final long combinedHash) {
+    return (int) ((combinedHash & Long.MAX_VALUE) % counterCount);
+  }
+
+  private static int shift(final int counter) {
+    return (counter & 15) * COUNTER_BITS;
+  }
+
+  private static long count(final long word, final int counter) {
+    return (word >>> shift(counter)) & MAX_COUNT;
+  }
+}
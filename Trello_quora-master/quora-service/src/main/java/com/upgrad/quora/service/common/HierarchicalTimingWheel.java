@@ -0,0 +1,166 @@
+package com.upgrad.quora.service.common;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel: values are scheduled for a deadline and handed back once the wheel
+ * has been advanced past it. Scheduling and cancelling are O(1); each level covers 64 times the
+ * range of the level below, and entries cascade to finer levels as their deadline comes closer.
+ * Deadlines are rounded up to whole ticks, so values expire up to one tick late, never early. A
+ * cancelled value is removed from its slot straight away, so the wheel only holds live timeouts.
+ *
+ * @param <T> type of the scheduled values
+ */
+public class HierarchicalTimingWheel<T> {
+
+  private static final int WHEEL_BITS = 6;
+
+  private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+  private final long tickMillis;
+
+  private final Set<Timeout<T>>[][] wheels;
+
+  private long currentTick;
+
+  private int size;
+
+  /**
+   * @param tickMillis resolution of the wheel
+   * @param levels number of levels, the wheel covers tickMillis * 64^levels milliseconds and farther
+   *     deadlines are re-examined once per revolution of the top level
+   * @param nowMillis current time
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public HierarchicalTimingWheel(final long tickMillis, final int levels, final long nowMillis) {
+    this.tickMillis = tickMillis;
+    this.wheels = new Set[levels][WHEEL_SIZE];
+    for (int level = 0; level < levels; level++) {
+      for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+        wheels[level][slot] = new LinkedHashSet<>();
+      }
+    }
+    this.currentTick = nowMillis / tickMillis;
+  }
+
+  /**
+   * Schedule a value.
+   *
+   * @param value value handed back when the deadline passes
+   * @param deadlineMillis deadline in epoch milliseconds
+   * @return handle to cancel the timeout
+   */
+  public synchronized Timeout<T> schedule(final T value, final long deadlineMillis) {
+    final Timeout<T> timeout =
+        new Timeout<>(this, value, (deadlineMillis + tickMillis - 1) / tickMillis);
+    place(timeout);
+    size++;
+    return timeout;
+  }
+
+  /**
+   * Move the wheel forward to the given time and hand every value whose deadline has passed to the
+   * consumer. The consumer runs once the wheel is unlocked again, so it may schedule and cancel.
+   *
+   * @param nowMillis current time
+   * @param onExpiry receives the expired values
+   */
+  public void advance(final long nowMillis, final Consumer<? super T> onExpiry) {
+    final List<T> expired = new ArrayList<>();
+    synchronized (this) {
+      final long targetTick = nowMillis / tickMillis;
+      while (currentTick < targetTick) {
+        currentTick++;
+        for (int level = wheels.length - 1; level > 0; level--) {
+          if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) == 0) {
+            cascade(wheels[level][slotIndex(currentTick, level)], expired);
+          }
+        }
+        final Set<Timeout<T>> slot = wheels[0][(int) (currentTick & WHEEL_MASK)];
+        for (final Timeout<T> timeout : slot) {
+          expire(timeout, expired);
+        }
+        slot.clear();
+      }
+    }
+    expired.forEach(onExpiry);
+  }
+
+  /** @return number of scheduled values that have neither expired nor been cancelled */
+  public synchronized int size() {
+    return size;
+  }
+
+  private void cascade(final Set<Timeout<T>> slot, final List<T> expired) {
+    final List<Timeout<T>> entries = new ArrayList<>(slot);
+    slot.clear();
+    for (final Timeout<T> timeout : entries) {
+      if (timeout.deadlineTick <= currentTick) {
+        expire(timeout, expired);
+      } else {
+        place(timeout);
+      }
+    }
+  }
+
+  private void expire(final Timeout<T> timeout, final List<T> expired) {
+    if (!timeout.cancelled) {
+      timeout.cancelled = true;
+      timeout.slot = null;
+      size--;
+      expired.add(timeout.value);
+    }
+  }
+
+  private void place(final Timeout<T> timeout) {
+    final long delta = Math.max(1, timeout.deadlineTick - currentTick);
+    int level = 0;
+    while (level < wheels.length - 1 && delta >= 1L << (WHEEL_BITS * (level + 1))) {
+      level++;
+    }
+    final long tick = Math.max(timeout.deadlineTick, currentTick + 1);
+    timeout.slot = wheels[level][slotIndex(tick, level)];
+    timeout.slot.add(timeout);
+  }
+
+  private static int slotIndex(final long tick, final int level) {
+    return (int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+  }
+
+  /**
+   * Handle of a scheduled value.
+   *
+   * @param <T> type of the scheduled value
+   */
+  public static final class Timeout<T> {
+    private final HierarchicalTimingWheel<T> wheel;
+    private final T value;
+    private final long deadlineTick;
+    private boolean cancelled;
+    private Set<Timeout<T>> slot;
+
+    private Timeout(final HierarchicalTimingWheel<T> wheel, final T value, final long deadlineTick) {
+      this.wheel = wheel;
+      this.value = value;
+      this.deadlineTick = deadlineTick;
+    }
+
+    /** Cancel the timeout; the value is then never handed back. */
+    public void cancel() {
+      synchronized (wheel) {
+        if (!cancelled) {
+          cancelled = true;
+          wheel.size--;
+          slot.remove(this);
+          slot = null;
+        }
+      }
+    }
+  }
+}
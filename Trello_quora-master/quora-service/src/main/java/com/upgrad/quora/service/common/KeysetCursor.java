@@ -0,0 +1,65 @@
+package com.upgrad.quora.service.common;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+
+/**
+ * Position in a listing ordered by date and id, both descending. The cursor is handed to clients as
+ * an opaque string; they only pass it back to fetch the page that follows.
+ */
+public final class KeysetCursor {
+
+  private final Instant date;
+
+  private final int id;
+
+  public KeysetCursor(final ZonedDateTime date, final int id) {
+    this.date = date.toInstant();
+    this.id = id;
+  }
+
+  private KeysetCursor(final Instant date, final int id) {
+    this.date = date;
+    this.id = id;
+  }
+
+  /** @return date of the last row of the previous page, in the default time zone */
+  public ZonedDateTime getDate() {
+    return ZonedDateTime.ofInstant(date, ZoneId.systemDefault());
+  }
+
+  /** @return id of the last row of the previous page */
+  public int getId() {
+    return id;
+  }
+
+  /** @return opaque string form of the cursor */
+  public String encode() {
+    final String plain = date.getEpochSecond() + "." + date.getNano() + ":" + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(plain.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * @param cursor string returned by {@link #encode()}
+   * @return the decoded cursor
+   * @throws IllegalArgumentException if the string is not a valid cursor
+   */
+  public static KeysetCursor decode(final String cursor) {
+    final String plain =
+        new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+    final int dot = plain.indexOf('.');
+    final int colon = plain.indexOf(':');
+    if (dot < 0 || colon < dot) {
+      throw new IllegalArgumentException("Malformed cursor");
+    }
+    final long seconds = Long.parseLong(plain.substring(0, dot));
+    final int nanos = Integer.parseInt(plain.substring(dot + 1, colon));
+    final int id = Integer.parseInt(plain.substring(colon + 1));
+    return new KeysetCursor(Instant.ofEpochSecond(seconds, nanos), id);
+  }
+}
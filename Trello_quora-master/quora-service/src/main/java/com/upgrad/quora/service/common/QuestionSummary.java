@@ -0,0 +1,43 @@
+package com.upgrad.quora.service.common;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * The columns of a question needed by the question listings, selected by constructor expression
+ * queries instead of loading a managed QuestionEntity together with its owner.
+ */
+public final class QuestionSummary {
+
+  private final Integer id;
+
+  private final UUID uuid;
+
+  private final String content;
+
+  private final ZonedDateTime date;
+
+  public QuestionSummary(
+      final Integer id, final UUID uuid, final String content, final ZonedDateTime date) {
+    this.id = id;
+    this.uuid = uuid;
+    this.content = content;
+    this.date = date;
+  }
+
+  public Integer getId() {
+    return id;
+  }
+
+  public UUID getUuid() {
+    return uuid;
+  }
+
+  public String getContent() {
+    return content;
+  }
+
+  public ZonedDateTime getDate() {
+    return date;
+  }
+}
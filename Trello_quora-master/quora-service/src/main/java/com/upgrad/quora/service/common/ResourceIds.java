@@ -0,0 +1,34 @@
+package com.upgrad.quora.service.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Conversion of the string ids of the API into the uuids the rows are stored with. Ids in the
+ * canonical 8-4-4-4-12 form are the uuid itself. Any other string is mapped to the name-based uuid
+ * of its UTF-8 bytes, which is also what the migration to native uuid columns stored for rows whose
+ * id was not a uuid, so that such ids keep resolving.
+ */
+public final class ResourceIds {
+
+  private static final Pattern CANONICAL =
+      Pattern.compile(
+          "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+  private ResourceIds() {}
+
+  /**
+   * @param id : id of a user, question, answer or session as given by a client
+   * @return uuid of the row with that id, null if the id is null
+   */
+  public static UUID toUuid(final String id) {
+    if (id == null) {
+      return null;
+    }
+    if (CANONICAL.matcher(id).matches()) {
+      return UUID.fromString(id);
+    }
+    return UUID.nameUUIDFromBytes(id.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,59 @@
+package com.upgrad.quora.service.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * A ranked search hit, also used as the position after which the next page of results starts. The
+ * cursor is handed to clients as an opaque string; they only pass it back to fetch the page that
+ * follows.
+ */
+public final class SearchCursor {
+
+  private final double score;
+
+  private final int id;
+
+  public SearchCursor(final double score, final int id) {
+    this.score = score;
+    this.id = id;
+  }
+
+  /** @return relevance score of the hit */
+  public double getScore() {
+    return score;
+  }
+
+  /** @return id of the hit */
+  public int getId() {
+    return id;
+  }
+
+  /** @return opaque string form of the cursor */
+  public String encode() {
+    final String plain = Long.toHexString(Double.doubleToLongBits(score)) + ":" + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(plain.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * @param cursor string returned by {@link #encode()}
+   * @return the decoded cursor
+   * @throws IllegalArgumentException if the string is not a valid cursor
+   */
+  public static SearchCursor decode(final String cursor) {
+    final String plain =
+        new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+    final int colon = plain.indexOf(':');
+    if (colon < 0) {
+      throw new IllegalArgumentException("Malformed cursor");
+    }
+    final double score =
+        Double.longBitsToDouble(Long.parseUnsignedLong(plain.substring(0, colon), 16));
+    if (Double.isNaN(score)) {
+      throw new IllegalArgumentException("Malformed cursor");
+    }
+    return new SearchCursor(score, Integer.parseInt(plain.substring(colon + 1)));
+  }
+}
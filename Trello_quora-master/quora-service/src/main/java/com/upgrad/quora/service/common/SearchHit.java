@@ -0,0 +1,27 @@
+package com.upgrad.quora.service.common;
+
+/**
+ * An item returned by a full-text search together with its rank.
+ *
+ * @param <T> type of the found items
+ */
+public final class SearchHit<T> {
+
+  private final T item;
+
+  private final SearchCursor cursor;
+
+  public SearchHit(final T item, final SearchCursor cursor) {
+    this.item = item;
+    this.cursor = cursor;
+  }
+
+  public T getItem() {
+    return item;
+  }
+
+  /** @return score and id of the hit, from which the following page starts */
+  public SearchCursor getCursor() {
+    return cursor;
+  }
+}
@@ -0,0 +1,61 @@
+package com.upgrad.quora.service.common;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates version 7 uuids: the 48 most significant bits are the Unix time in milliseconds, so
+ * uuids created one after another are stored next to each other in a b-tree index instead of at
+ * random positions. The 12 bits after the version hold a sequence number, which keeps the uuids of
+ * this generator strictly increasing even within a millisecond; the remaining 62 bits are random.
+ *
+ * <p>Thread safe without locking: the timestamp and sequence are advanced together by a single
+ * compare-and-set, and the random bits come from {@link ThreadLocalRandom}. The random bits are not
+ * meant to be unguessable, the uuids identify rows but are no secret.
+ */
+public final class TimeOrderedUuidGenerator {
+
+  private static final int SEQUENCE_BITS = 12;
+
+  private static final long VERSION_7 = 0x7000L;
+
+  private static final long VARIANT_RFC_4122 = 0x8000000000000000L;
+
+  private static final long RANDOM_MASK = 0x3fffffffffffffffL;
+
+  private final LongSupplier clock;
+
+  /** Millisecond timestamp and sequence number of the last uuid, as (millis << 12) | sequence. */
+  private final AtomicLong last = new AtomicLong();
+
+  public TimeOrderedUuidGenerator() {
+    this(System::currentTimeMillis);
+  }
+
+  /** @param clock : current time in epoch milliseconds */
+  public TimeOrderedUuidGenerator(final LongSupplier clock) {
+    this.clock = clock;
+  }
+
+  /** @return a uuid greater than every uuid this generator returned before */
+  public UUID next() {
+    final long now = clock.getAsLong() << SEQUENCE_BITS;
+    long previous;
+    long current;
+    do {
+      previous = last.get();
+      // More than 4096 uuids in a millisecond, or a clock set back, borrow from the next
+      // milliseconds rather than break the order
+      current = Math.max(now, previous + 1);
+    } while (!last.compareAndSet(previous, current));
+
+    final long millis = current >>> SEQUENCE_BITS;
+    final long sequence = current & ((1L << SEQUENCE_BITS) - 1);
+    final long mostSignificant = (millis << 16) | VERSION_7 | sequence;
+    final long leastSignificant =
+        VARIANT_RFC_4122 | (ThreadLocalRandom.current().nextLong() & RANDOM_MASK);
+    return new UUID(mostSignificant, leastSignificant);
+  }
+}
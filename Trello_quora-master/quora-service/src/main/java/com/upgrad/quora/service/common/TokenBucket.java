@@ -0,0 +1,48 @@
+package com.upgrad.quora.service.common;
+
+/**
+ * A token bucket that holds up to a fixed number of tokens and is refilled at a constant rate.
+ * Refills are computed lazily from the elapsed time whenever a token is requested.
+ */
+public class TokenBucket {
+
+  private final double capacity;
+
+  private final double tokensPerNano;
+
+  private double tokens;
+
+  private long refilledAt;
+
+  /**
+   * @param capacity maximum number of tokens, the bucket starts full
+   * @param tokensPerSecond refill rate
+   */
+  public TokenBucket(final int capacity, final double tokensPerSecond) {
+    this.capacity = capacity;
+    this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+    this.tokens = capacity;
+    this.refilledAt = System.nanoTime();
+  }
+
+  /**
+   * Take a token if one is available.
+   *
+   * @return true if a token was taken, false if the bucket is empty
+   */
+  public synchronized boolean tryConsume() {
+    final long now = System.nanoTime();
+    tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+    refilledAt = now;
+    if (tokens < 1) {
+      return false;
+    }
+    tokens -= 1;
+    return true;
+  }
+
+  /** Give back a token taken by {@link #tryConsume()} for an attempt that did not go ahead. */
+  public synchronized void refund() {
+    tokens = Math.min(capacity, tokens + 1);
+  }
+}
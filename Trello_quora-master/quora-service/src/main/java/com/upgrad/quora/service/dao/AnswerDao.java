@@ -1,12 +1,25 @@
 package com.upgrad.quora.service.dao;
 
+import com.upgrad.quora.service.common.AnswerSearchSummary;
+import com.upgrad.quora.service.common.AnswerSummary;
+import com.upgrad.quora.service.common.ResourceIds;
+import com.upgrad.quora.service.common.SearchCursor;
+import com.upgrad.quora.service.common.SearchHit;
 import com.upgrad.quora.service.entity.AnswerEntity;
+import com.upgrad.quora.service.entity.QuestionEntity;
+import com.upgrad.quora.service.entity.UserEntity;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 @Repository
 public class AnswerDao {
@@ -22,6 +35,18 @@ public class AnswerDao {
     return answerEntity;
   }
 
+  /**
+   * Create several answers in the DB, written as JDBC batches, and detach them so that a bulk
+   * request does not keep every created answer in the persistence context
+   *
+   * @param answerEntities : answers to create
+   */
+  public void createAnswers(final List<AnswerEntity> answerEntities) {
+    answerEntities.forEach(entityManager::persist);
+    entityManager.flush();
+    entityManager.clear();
+  }
+
   /**
    * get answers from the DB
    *
@@ -31,7 +56,7 @@ public class AnswerDao {
     try {
       return entityManager
           .createNamedQuery("getAnswerById", AnswerEntity.class)
-          .setParameter("uuid", answerId)
+          .setParameter("uuid", ResourceIds.toUuid(answerId))
           .getSingleResult();
     } catch (NoResultException nre) {
       return null;
@@ -60,11 +85,117 @@ public class AnswerDao {
     return deleteAnswer;
   }
 
-  // fetch all the answers to the question using questionId
-  public List<AnswerEntity> getAllAnswersToQuestion(final String questionId) {
+  // fetch all the answers to the question
+  public List<AnswerSummary> getAllAnswersToQuestion(final QuestionEntity questionEntity) {
     return entityManager
-        .createNamedQuery("getAllAnswersToQuestion", AnswerEntity.class)
-        .setParameter("uuid", questionId)
+        .createNamedQuery("getAllAnswersToQuestion", AnswerSummary.class)
+        .setParameter("question", questionEntity)
         .getResultList();
   }
+
+  /**
+   * Fetch the answers with the given ids together with the content of their question
+   *
+   * @param ids : primary keys of the answers
+   * @return answers that still exist, in no particular order
+   */
+  public List<AnswerSearchSummary> getAnswerSearchSummariesByIds(final List<Integer> ids) {
+    if (ids.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return entityManager
+        .createNamedQuery("getAnswerSearchSummariesByIds", AnswerSearchSummary.class)
+        .setParameter("ids", ids)
+        .getResultList();
+  }
+
+  /**
+   * Fetch the ids of the answers to a question, which are deleted with it
+   *
+   * @param questionEntity : question
+   * @return ids of its answers
+   */
+  public List<Integer> getAnswerIdsToQuestion(final QuestionEntity questionEntity) {
+    return entityManager
+        .createNamedQuery("getAnswerIdsToQuestion", Integer.class)
+        .setParameter("question", questionEntity)
+        .getResultList();
+  }
+
+  /**
+   * Fetch the ids of the answers deleted with a user: those the user posted and those to the
+   * questions of the user. Read with one query per foreign key, since an OR across both would scan
+   * the whole table
+   *
+   * @param userEntity : user about to be deleted
+   * @return ids of the answers
+   */
+  public List<Integer> getAnswerIdsRemovedWithUser(final UserEntity userEntity) {
+    final Set<Integer> answerIds =
+        new LinkedHashSet<>(
+            entityManager
+                .createNamedQuery("getAnswerIdsByUser", Integer.class)
+                .setParameter("user", userEntity)
+                .getResultList());
+    answerIds.addAll(
+        entityManager
+            .createNamedQuery("getAnswerIdsToQuestionsOfUser", Integer.class)
+            .setParameter("user", userEntity)
+            .getResultList());
+    return new ArrayList<>(answerIds);
+  }
+
+  /**
+   * Streams the id and text of every answer through a database cursor
+   *
+   * @param consumer : receives the rows one at a time
+   */
+  public void streamAnswerContents(final Consumer<? super Object[]> consumer) {
+    ScrollableQueries.forEach(
+        entityManager,
+        entityManager.createNamedQuery("streamAnswerContents", Object[].class),
+        consumer);
+  }
+
+  /**
+   * Ranks the answers whose text matches any of the terms with ts_rank, best match first, using
+   * the GIN index on the generated ans_tsv column
+   *
+   * @param terms : distinct query terms
+   * @param after : last hit of the previous page, null for the first page
+   * @param limit : maximum number of hits
+   * @return matching answers with their rank
+   */
+  public List<SearchHit<AnswerSearchSummary>> searchAnswers(
+      final List<String> terms, final SearchCursor after, final int limit) {
+    final List<SearchHit<AnswerSearchSummary>> hits = new ArrayList<>();
+    for (Object[] row :
+        FullTextQueries.search(entityManager, "searchAnswers", terms, after, limit)) {
+      hits.add(
+          new SearchHit<>(
+              new AnswerSearchSummary(
+                  (Integer) row[0],
+                  UUID.fromString((String) row[1]),
+                  (String) row[2],
+                  (String) row[3]),
+              FullTextQueries.cursor(row)));
+    }
+    return hits;
+  }
+
+  /**
+   * Streams the answers to a question through a database cursor
+   *
+   * @param questionEntity : question whose answers are streamed
+   * @param consumer : receives the answers one at a time
+   */
+  public void streamAnswersToQuestion(
+      final QuestionEntity questionEntity, final Consumer<? super AnswerSummary> consumer) {
+    ScrollableQueries.forEach(
+        entityManager,
+        entityManager
+            .createNamedQuery("streamAnswersToQuestion", AnswerSummary.class)
+            .setParameter("question", questionEntity),
+        consumer);
+  }
 }
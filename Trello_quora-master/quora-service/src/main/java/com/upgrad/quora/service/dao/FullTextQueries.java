@@ -0,0 +1,42 @@
+package com.upgrad.quora.service.dao;
+
+import com.upgrad.quora.service.common.SearchCursor;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * Runs the native full-text search queries declared on the entities. They match rows whose
+ * generated tsvector column contains any of the query terms, rank them with ts_rank and return the
+ * page that follows a {@link SearchCursor}, with the id as first column and the rank as last.
+ */
+final class FullTextQueries {
+
+  private FullTextQueries() {}
+
+  @SuppressWarnings("unchecked")
+  static List<Object[]> search(
+      final EntityManager entityManager,
+      final String queryName,
+      final List<String> terms,
+      final SearchCursor after,
+      final int limit) {
+    // Terms only hold letters and digits, so they can be joined into tsquery syntax as they are
+    return entityManager
+        .createNamedQuery(queryName)
+        .setParameter("query", String.join(" | ", terms))
+        .setParameter("score", after != null ? after.getScore() : Double.POSITIVE_INFINITY)
+        .setParameter("id", after != null ? after.getId() : Integer.MAX_VALUE)
+        .setMaxResults(limit)
+        .getResultList();
+  }
+
+  /**
+   * @param row : row returned by {@link #search}
+   * @return rank and id of the row
+   */
+  static SearchCursor cursor(final Object[] row) {
+    final double rank = ((Number) row[row.length - 1]).doubleValue();
+    return new SearchCursor(rank, ((Number) row[0]).intValue());
+  }
+}
@@ -1,5 +1,10 @@
 package com.upgrad.quora.service.dao;
 
+import com.upgrad.quora.service.common.KeysetCursor;
+import com.upgrad.quora.service.common.QuestionSummary;
+import com.upgrad.quora.service.common.ResourceIds;
+import com.upgrad.quora.service.common.SearchCursor;
+import com.upgrad.quora.service.common.SearchHit;
 import com.upgrad.quora.service.entity.QuestionEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import org.springframework.stereotype.Repository;
@@ -7,7 +12,17 @@ import org.springframework.stereotype.Repository;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 @Repository
 public class QuestionDao {
@@ -26,28 +41,170 @@ public class QuestionDao {
   }
 
   /**
-   * Fetches a list of Question entities from the Database
+   * Persists new Question entities, writing them to the Database as JDBC batches, and detaches
+   * them so that a bulk request does not keep every created question in the persistence context
    *
-   * @return List of all questions
+   * @param questionEntities : questions to create
    */
-  public List<QuestionEntity> getAllQuestions() {
+  public void createQuestions(final List<QuestionEntity> questionEntities) {
+    questionEntities.forEach(entityManager::persist);
+    entityManager.flush();
+    entityManager.clear();
+  }
+
+  /**
+   * Get a reference to a question by database id without loading its row.
+   *
+   * @param id : database id of the question
+   * @return lazy reference to the question
+   */
+  public QuestionEntity getQuestionReference(final Integer id) {
+    return entityManager.getReference(QuestionEntity.class, id);
+  }
+
+  /**
+   * Looks up the database ids of several questions with a single query
+   *
+   * @param uuids : uuids of the questions
+   * @return database id by uuid of the questions that exist
+   */
+  public Map<UUID, Integer> getQuestionIdsByUuids(final Collection<UUID> uuids) {
+    final Map<UUID, Integer> ids = new HashMap<>();
+    if (uuids.isEmpty()) {
+      return ids;
+    }
+    for (Object[] row :
+        entityManager
+            .createNamedQuery("getQuestionIdsByUuids", Object[].class)
+            .setParameter("uuids", uuids)
+            .getResultList()) {
+      ids.put((UUID) row[0], (Integer) row[1]);
+    }
+    return ids;
+  }
+
+  /**
+   * Fetches one page of questions from the Database, newest first. Pages are addressed by
+   * the (date, id) of the last question of the previous page so that deep pages cost the same as
+   * the first one.
+   *
+   * @param after : position after which the page starts, null for the first page
+   * @param limit : maximum number of questions
+   * @return page of questions
+   */
+  public List<QuestionSummary> getQuestionsPage(final KeysetCursor after, final int limit) {
+    if (after == null) {
+      return entityManager
+          .createNamedQuery("getQuestionsFirstPage", QuestionSummary.class)
+          .setMaxResults(limit)
+          .getResultList();
+    }
+    return entityManager
+        .createNamedQuery("getQuestionsAfter", QuestionSummary.class)
+        .setParameter("date", after.getDate())
+        .setParameter("id", after.getId())
+        .setMaxResults(limit)
+        .getResultList();
+  }
 
-    List<QuestionEntity> questionsList =
-        entityManager.createNamedQuery("getAllQuestions", QuestionEntity.class).getResultList();
-    return questionsList;
+  /**
+   * Fetches the questions with the given ids, in no particular order
+   *
+   * @param ids : primary keys of the questions
+   * @return questions that still exist
+   */
+  public List<QuestionSummary> getQuestionsByIds(final List<Integer> ids) {
+    if (ids.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return entityManager
+        .createNamedQuery("getQuestionsByIds", QuestionSummary.class)
+        .setParameter("ids", ids)
+        .getResultList();
+  }
+
+  /**
+   * Ranks the questions whose content matches any of the terms with ts_rank, best match first,
+   * using the GIN index on the generated content_tsv column
+   *
+   * @param terms : distinct query terms
+   * @param after : last hit of the previous page, null for the first page
+   * @param limit : maximum number of hits
+   * @return matching questions with their rank
+   */
+  public List<SearchHit<QuestionSummary>> searchQuestions(
+      final List<String> terms, final SearchCursor after, final int limit) {
+    final List<SearchHit<QuestionSummary>> hits = new ArrayList<>();
+    for (Object[] row :
+        FullTextQueries.search(entityManager, "searchQuestions", terms, after, limit)) {
+      final ZonedDateTime date =
+          ZonedDateTime.ofInstant(((Timestamp) row[3]).toInstant(), ZoneId.systemDefault());
+      hits.add(
+          new SearchHit<>(
+              new QuestionSummary(
+                  (Integer) row[0], UUID.fromString((String) row[1]), (String) row[2], date),
+              FullTextQueries.cursor(row)));
+    }
+    return hits;
+  }
+
+  /**
+   * Streams every question, newest first, through a database cursor
+   *
+   * @param consumer : receives the questions one at a time
+   */
+  public void streamAllQuestions(final Consumer<? super QuestionSummary> consumer) {
+    ScrollableQueries.forEach(
+        entityManager,
+        entityManager.createNamedQuery("streamAllQuestions", QuestionSummary.class),
+        consumer);
+  }
+
+  /**
+   * Streams the questions posted by a user through a database cursor
+   *
+   * @param user
+   * @param consumer : receives the questions one at a time
+   */
+  public void streamQuestionsByUser(
+      final UserEntity user, final Consumer<? super QuestionSummary> consumer) {
+    ScrollableQueries.forEach(
+        entityManager,
+        entityManager
+            .createNamedQuery("getAllQuestionByUser", QuestionSummary.class)
+            .setParameter("user", user),
+        consumer);
   }
 
   /**
    * Fetch Question by question Uuid
    *
-   * @param questionUuid
+   * @param questionUuid : id of the question as given by the client
    * @return question by Uuid
    */
   public QuestionEntity getQuestionByUuid(String questionUuid) {
     try {
       return entityManager
           .createNamedQuery("getQuestionByUuid", QuestionEntity.class)
-          .setParameter("questionId", questionUuid)
+          .setParameter("questionId", ResourceIds.toUuid(questionUuid))
+          .getSingleResult();
+    } catch (NoResultException nre) {
+      return null;
+    }
+  }
+
+  /**
+   * Fetch Question by question Uuid together with its owner, for the checks made before editing or
+   * deleting it
+   *
+   * @param questionUuid : id of the question as given by the client
+   * @return question by Uuid with its userEntity initialized
+   */
+  public QuestionEntity getQuestionWithOwnerByUuid(String questionUuid) {
+    try {
+      return entityManager
+          .createNamedQuery("getQuestionWithOwnerByUuid", QuestionEntity.class)
+          .setParameter("questionId", ResourceIds.toUuid(questionUuid))
           .getSingleResult();
     } catch (NoResultException nre) {
       return null;
@@ -71,9 +228,9 @@ public class QuestionDao {
    * @param userId
    * @return list of questions
    */
-  public List<QuestionEntity> getAllQuestionsByUser(final UserEntity userId) {
+  public List<QuestionSummary> getAllQuestionsByUser(final UserEntity userId) {
     return entityManager
-        .createNamedQuery("getAllQuestionByUser", QuestionEntity.class)
+        .createNamedQuery("getAllQuestionByUser", QuestionSummary.class)
         .setParameter("user", userId)
         .getResultList();
   }
@@ -0,0 +1,93 @@
+package com.upgrad.quora.service.dao;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Access to SCHEMA_HISTORY, the table recording which migration scripts of quora-db have been
+ * applied to the database. Runs on plain JDBC because migrations complete before the
+ * EntityManagerFactory is created.
+ */
+@Repository
+public class SchemaHistoryDao {
+
+  /** Key of the advisory lock serializing the migrations of nodes starting together. */
+  private static final long MIGRATION_LOCK_KEY = 0x71756f7261L;
+
+  private static final String CREATE_SCHEMA_HISTORY =
+      "CREATE TABLE IF NOT EXISTS SCHEMA_HISTORY(VERSION INTEGER PRIMARY KEY,"
+          + " DESCRIPTION VARCHAR(200) NOT NULL, CHECKSUM VARCHAR(64) NULL,"
+          + " INSTALLED_AT TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)";
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  /** Create the history table if the database has none yet. */
+  public void createSchemaHistory() {
+    jdbcTemplate.execute(CREATE_SCHEMA_HISTORY);
+  }
+
+  /** @return version of the database server, such as 120005 for PostgreSQL 12.5 */
+  public int getServerVersionNum() {
+    return jdbcTemplate.queryForObject(
+        "SELECT current_setting('server_version_num')::INTEGER", Integer.class);
+  }
+
+  /** Wait for other nodes migrating the same database; released when the transaction ends. */
+  public void lock() {
+    jdbcTemplate.queryForObject(
+        "SELECT pg_advisory_xact_lock(?)::text", String.class, MIGRATION_LOCK_KEY);
+  }
+
+  /**
+   * @return checksum by version of the applied migrations, in version order. A null checksum marks
+   *     a baseline: the schema was created by quora.sql at that version, not by the scripts.
+   */
+  public Map<Integer, String> getAppliedChecksums() {
+    final Map<Integer, String> checksums = new LinkedHashMap<>();
+    jdbcTemplate.query(
+        "SELECT VERSION, CHECKSUM FROM SCHEMA_HISTORY ORDER BY VERSION",
+        row -> {
+          checksums.put(row.getInt(1), row.getString(2));
+        });
+    return checksums;
+  }
+
+  /**
+   * Run a migration script in the current transaction.
+   *
+   * @param script : SQL statements separated by semicolons
+   */
+  public void execute(final Resource script) {
+    jdbcTemplate.execute(
+        (ConnectionCallback<Void>)
+            connection -> {
+              ScriptUtils.executeSqlScript(
+                  connection, new EncodedResource(script, StandardCharsets.UTF_8));
+              return null;
+            });
+  }
+
+  /**
+   * Record an applied migration.
+   *
+   * @param version : version of the script
+   * @param description : description taken from the script name
+   * @param checksum : checksum of the script
+   */
+  public void recordApplied(final int version, final String description, final String checksum) {
+    jdbcTemplate.update(
+        "INSERT INTO SCHEMA_HISTORY(VERSION, DESCRIPTION, CHECKSUM) VALUES (?, ?, ?)",
+        version,
+        description,
+        checksum);
+  }
+}
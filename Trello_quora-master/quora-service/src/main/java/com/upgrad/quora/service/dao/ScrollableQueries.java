@@ -0,0 +1,50 @@
+package com.upgrad.quora.service.dao;
+
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.function.Consumer;
+
+/**
+ * Runs queries through a forward-only database cursor, handing the rows to a consumer one at a
+ * time. The persistence context is cleared after every fetch, so memory use does not grow with the
+ * number of rows. Must be called inside a transaction for PostgreSQL to honour the fetch size.
+ */
+final class ScrollableQueries {
+
+  static final int FETCH_SIZE = 500;
+
+  private ScrollableQueries() {}
+
+  static <T> void forEach(
+      final EntityManager entityManager,
+      final TypedQuery<T> query,
+      final Consumer<? super T> consumer) {
+    final Session session = entityManager.unwrap(Session.class);
+    @SuppressWarnings("unchecked")
+    final Query<T> hibernateQuery = query.unwrap(Query.class);
+    try (ScrollableResults results =
+        hibernateQuery
+            .setFetchSize(FETCH_SIZE)
+            .setReadOnly(true)
+            .setCacheMode(CacheMode.IGNORE)
+            .scroll(ScrollMode.FORWARD_ONLY)) {
+      int count = 0;
+      while (results.next()) {
+        // A projection of several columns is handed over as the whole Object[] row
+        final Object[] columns = results.get();
+        @SuppressWarnings("unchecked")
+        final T row = (T) (columns.length == 1 ? columns[0] : columns);
+        consumer.accept(row);
+        if (++count % FETCH_SIZE == 0) {
+          session.clear();
+        }
+      }
+    }
+  }
+}
@@ -1,18 +1,51 @@
 package com.upgrad.quora.service.dao;
 
+import com.upgrad.quora.service.common.AccessTokenDigest;
 import com.upgrad.quora.service.entity.UserAuthEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @Repository
 public class UserAuthDao {
 
+  private static final String INSERT_USER_AUTH =
+      "INSERT INTO user_auth(uuid, user_id, access_token, access_token_digest, expires_at, login_at,"
+          + " logout_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+  private static final String DELETE_EXPIRED_USER_AUTH =
+      "DELETE FROM user_auth WHERE id IN (SELECT id FROM user_auth WHERE expires_at < ? LIMIT ?)";
+
+  private static final String DELETE_EXPIRED_OR_SIGNED_OUT_USER_AUTH =
+      "DELETE FROM user_auth WHERE id IN (SELECT id FROM user_auth WHERE expires_at < ?"
+          + " OR logout_at < ? LIMIT ?)";
+
+  private static final String UPSERT_REVOKED_USER =
+      "INSERT INTO revoked_users(user_uuid, expires_at) VALUES (?, ?)"
+          + " ON CONFLICT (user_uuid) DO UPDATE SET expires_at = excluded.expires_at";
+
+  private static final String SELECT_REVOKED_USERS =
+      "SELECT user_uuid, expires_at FROM revoked_users WHERE expires_at > ?";
+
+  private static final String DELETE_EXPIRED_REVOKED_USERS =
+      "DELETE FROM revoked_users WHERE expires_at <= ?";
+
   @PersistenceContext private EntityManager entityManager;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
   /**
-   * get User auth by token
+   * get User auth by token, looked up through the indexed digest of the token
    *
    * @param accessToken : access token to authenticate
    * @return single user auth details
@@ -21,12 +54,69 @@ public class UserAuthDao {
     try {
       return entityManager
           .createNamedQuery("userAuthByAccessToken", UserAuthEntity.class)
-          .setParameter("accessToken", accessToken)
+          .setParameter("accessTokenDigest", AccessTokenDigest.of(accessToken))
           .getSingleResult();
     } catch (NoResultException nre) {
       return null;
     }
   }
+  /**
+   * get the signed out sessions whose tokens have not expired yet
+   *
+   * @param now : current time
+   * @return expiry of the revoked sessions by session uuid
+   */
+  public Map<UUID, ZonedDateTime> getRevokedSessions(final ZonedDateTime now) {
+    final Map<UUID, ZonedDateTime> sessions = new HashMap<>();
+    for (Object[] row :
+        entityManager
+            .createNamedQuery("revokedUserAuths", Object[].class)
+            .setParameter("now", now)
+            .getResultList()) {
+      sessions.put((UUID) row[0], (ZonedDateTime) row[1]);
+    }
+    return sessions;
+  }
+
+  /**
+   * Records a deleted user whose access tokens must be rejected until they expire.
+   *
+   * @param userUuid : uuid of the deleted user
+   * @param expiresAt : time at which the last token of the user expires
+   */
+  public void createRevokedUser(final UUID userUuid, final ZonedDateTime expiresAt) {
+    jdbcTemplate.update(UPSERT_REVOKED_USER, userUuid, toTimestamp(expiresAt));
+  }
+
+  /**
+   * get the deleted users whose tokens may not have expired yet
+   *
+   * @param now : current time
+   * @return expiry of the revocation by user uuid
+   */
+  public Map<UUID, ZonedDateTime> getRevokedUsers(final ZonedDateTime now) {
+    final Map<UUID, ZonedDateTime> users = new HashMap<>();
+    jdbcTemplate.query(
+        SELECT_REVOKED_USERS,
+        rs -> {
+          users.put(
+              rs.getObject(1, UUID.class),
+              rs.getTimestamp(2).toInstant().atZone(now.getZone()));
+        },
+        toTimestamp(now));
+    return users;
+  }
+
+  /**
+   * Deletes the revoked users whose tokens have all expired.
+   *
+   * @param now : current time
+   * @return number of deleted rows
+   */
+  public int deleteExpiredRevokedUsers(final ZonedDateTime now) {
+    return jdbcTemplate.update(DELETE_EXPIRED_REVOKED_USERS, toTimestamp(now));
+  }
+
   /**
    * Persists user authen entity in database.
    *
@@ -34,9 +124,73 @@ public class UserAuthDao {
    * @return UserAuthEntity
    */
   public UserAuthEntity createAuthToken(final UserAuthEntity userAuthEntity) {
+    userAuthEntity.setAccessTokenDigest(AccessTokenDigest.of(userAuthEntity.getAccessToken()));
     entityManager.persist(userAuthEntity);
     return userAuthEntity;
   }
+
+  /**
+   * Inserts several user auth entities with a single JDBC batch. The entities are not attached to
+   * the persistence context and their ids are not populated.
+   *
+   * @param userAuthEntities to be inserted in the DB.
+   */
+  public void createAuthTokens(final List<UserAuthEntity> userAuthEntities) {
+    jdbcTemplate.batchUpdate(
+        INSERT_USER_AUTH,
+        userAuthEntities,
+        userAuthEntities.size(),
+        (ps, userAuthEntity) -> {
+          userAuthEntity.setAccessTokenDigest(
+              AccessTokenDigest.of(userAuthEntity.getAccessToken()));
+          ps.setObject(1, userAuthEntity.getUuid());
+          ps.setInt(2, userAuthEntity.getUserEntity().getId());
+          ps.setString(3, userAuthEntity.getAccessToken());
+          ps.setBytes(4, userAuthEntity.getAccessTokenDigest());
+          ps.setTimestamp(5, toTimestamp(userAuthEntity.getExpiresAt()));
+          ps.setTimestamp(6, toTimestamp(userAuthEntity.getLoginAt()));
+          if (userAuthEntity.getLogoutAt() != null) {
+            ps.setTimestamp(7, toTimestamp(userAuthEntity.getLogoutAt()));
+          } else {
+            ps.setNull(7, Types.TIMESTAMP);
+          }
+        });
+  }
+
+  /**
+   * Deletes at most one chunk of sessions that expired, or were signed out, before the cutoff.
+   *
+   * @param cutoff : sessions expired or signed out before this time are deleted
+   * @param includeSignedOut : whether signed out sessions that have not expired are deleted too
+   * @param chunkSize : maximum number of rows deleted
+   * @return number of deleted rows
+   */
+  public int deleteExpiredSessions(
+      final ZonedDateTime cutoff, final boolean includeSignedOut, final int chunkSize) {
+    final Timestamp timestamp = toTimestamp(cutoff);
+    if (includeSignedOut) {
+      return jdbcTemplate.update(
+          DELETE_EXPIRED_OR_SIGNED_OUT_USER_AUTH, timestamp, timestamp, chunkSize);
+    }
+    return jdbcTemplate.update(DELETE_EXPIRED_USER_AUTH, timestamp, chunkSize);
+  }
+
+  /**
+   * Maintains the partitions of a partitioned user_auth table, see
+   * sql/partitioned/user_auth_partitioned.sql in quora-db: creates the partitions for the coming
+   * months and drops those holding only sessions that expired before the cutoff.
+   *
+   * @param cutoff : partitions whose whole range is before this time are dropped
+   * @param monthsAhead : number of future monthly partitions to keep created
+   * @return number of dropped partitions
+   */
+  public int maintainPartitions(final ZonedDateTime cutoff, final int monthsAhead) {
+    jdbcTemplate.queryForObject(
+        "SELECT create_user_auth_partitions(?)", Integer.class, monthsAhead);
+    return jdbcTemplate.queryForObject(
+        "SELECT drop_expired_user_auth_partitions(?)", Integer.class, toTimestamp(cutoff));
+  }
+
   /**
    * Update UserAuthEntity in Database
    *
@@ -45,4 +199,8 @@ public class UserAuthDao {
   public void updateUserAuth(final UserAuthEntity updatedUserAuthEntity) {
     entityManager.merge(updatedUserAuthEntity);
   }
+
+  private static Timestamp toTimestamp(final ZonedDateTime dateTime) {
+    return Timestamp.from(dateTime.toInstant());
+  }
 }
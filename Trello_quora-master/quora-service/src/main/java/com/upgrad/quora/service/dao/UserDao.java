@@ -1,15 +1,25 @@
 package com.upgrad.quora.service.dao;
 
+import com.upgrad.quora.service.common.ResourceIds;
 import com.upgrad.quora.service.entity.UserEntity;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
+import java.util.function.Consumer;
 
 @Repository
 public class UserDao {
 
+  /** Unique constraint on USERS.USERNAME, see quora.sql */
+  public static final String USERNAME_CONSTRAINT = "users_username_key";
+
+  /** Unique constraint on USERS.EMAIL, see quora.sql */
+  public static final String EMAIL_CONSTRAINT = "users_email_key";
+
   @PersistenceContext private EntityManager entityManager;
   /**
    * Fetch a single user by id
@@ -21,23 +31,51 @@ public class UserDao {
     try {
       return entityManager
           .createNamedQuery("userByUserId", UserEntity.class)
-          .setParameter("userId", userId)
+          .setParameter("userId", ResourceIds.toUuid(userId))
           .getSingleResult();
     } catch (NoResultException nre) {
       return null;
     }
   }
   /**
-   * create user in database.
+   * Get a reference to a user by database id without loading its row.
+   *
+   * @param id : database id of the user
+   * @return lazy reference to the user
+   */
+  public UserEntity getUserReference(final Integer id) {
+    return entityManager.getReference(UserEntity.class, id);
+  }
+
+  /**
+   * create user in database. The row is inserted right away, so that a username or email already
+   * in use fails here on the unique constraints instead of at commit.
    *
    * @param userEntity : the userEntity body
    * @return User details
+   * @throws DataIntegrityViolationException : if a unique constraint is violated, see {@link
+   *     #getViolatedConstraint(DataIntegrityViolationException)}
    */
   public UserEntity createUser(UserEntity userEntity) {
     entityManager.persist(userEntity);
+    entityManager.flush();
     return userEntity;
   }
 
+  /**
+   * @param e : exception thrown by {@link #createUser(UserEntity)}
+   * @return name of the constraint the insert violated, such as {@link #USERNAME_CONSTRAINT}, or
+   *     null if it is not known
+   */
+  public static String getViolatedConstraint(final DataIntegrityViolationException e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ConstraintViolationException) {
+        return ((ConstraintViolationException) cause).getConstraintName();
+      }
+    }
+    return null;
+  }
+
   /**
    * Method to get user by name
    *
@@ -54,6 +92,7 @@ public class UserDao {
       return null;
     }
   }
+
   /**
    * Method to get user by email
    *
@@ -71,6 +110,18 @@ public class UserDao {
     }
   }
 
+  /**
+   * Streams the username and email of every user through a database cursor
+   *
+   * @param consumer : receives the rows one at a time
+   */
+  public void streamUserNamesAndEmails(final Consumer<? super Object[]> consumer) {
+    ScrollableQueries.forEach(
+        entityManager,
+        entityManager.createNamedQuery("streamUserNamesAndEmails", Object[].class),
+        consumer);
+  }
+
   /**
    * Method to update user in db
    *
@@ -11,25 +11,65 @@ import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.time.ZonedDateTime;
+import java.util.UUID;
 
 @Entity
 @Table(name = "answer")
 @NamedQueries({
-  @NamedQuery(name = "getAnswerById", query = "select a from AnswerEntity a where a.uuid=:uuid"),
+  @NamedQuery(
+      name = "getAnswerById",
+      query =
+          "select a from AnswerEntity a join fetch a.userEntity join fetch a.questionEntity"
+              + " where a.uuid=:uuid"),
   @NamedQuery(
       name = "getAllAnswersToQuestion",
-      query = "select a from AnswerEntity a where a.questionEntity.uuid = :uuid")
+      query =
+          "select new com.upgrad.quora.service.common.AnswerSummary(a.uuid, a.answer)"
+              + " from AnswerEntity a where a.questionEntity = :question"),
+  @NamedQuery(
+      name = "streamAnswersToQuestion",
+      query =
+          "select new com.upgrad.quora.service.common.AnswerSummary(a.uuid, a.answer)"
+              + " from AnswerEntity a where a.questionEntity = :question"),
+  @NamedQuery(
+      name = "getAnswerSearchSummariesByIds",
+      query =
+          "select new com.upgrad.quora.service.common.AnswerSearchSummary(a.id, a.uuid, a.answer,"
+              + " q.content) from AnswerEntity a join a.questionEntity q where a.id in :ids"),
+  @NamedQuery(
+      name = "getAnswerIdsToQuestion",
+      query = "select a.id from AnswerEntity a where a.questionEntity = :question"),
+  @NamedQuery(
+      name = "getAnswerIdsByUser",
+      query = "select a.id from AnswerEntity a where a.userEntity = :user"),
+  @NamedQuery(
+      name = "getAnswerIdsToQuestionsOfUser",
+      query = "select a.id from AnswerEntity a join a.questionEntity q where q.userEntity = :user"),
+  @NamedQuery(name = "streamAnswerContents", query = "select a.id, a.answer from AnswerEntity a")
+})
+@NamedNativeQueries({
+  @NamedNativeQuery(
+      name = "searchAnswers",
+      query =
+          "select id, uuid, ans, content, rank from ("
+              + "select a.id, cast(a.uuid as varchar) as uuid, a.ans, q.content,"
+              + " ts_rank(a.ans_tsv, query) as rank"
+              + " from answer a join question q on q.id = a.question_id,"
+              + " to_tsquery('english', :query) query"
+              + " where a.ans_tsv @@ query) hits"
+              + " where rank < cast(:score as real) or (rank = cast(:score as real) and id < :id)"
+              + " order by rank desc, id desc")
 })
 public class AnswerEntity {
   @Id
   @Column(name = "id")
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "answer_id_seq")
+  @SequenceGenerator(name = "answer_id_seq", sequenceName = "answer_id_seq", allocationSize = 50)
   private Integer id;
 
   @Column(name = "uuid")
-  @Size(max = 200)
   @NotNull
-  private String uuid;
+  private UUID uuid;
 
   @Column(name = "ans")
   @Size(max = 255)
@@ -40,12 +80,12 @@ public class AnswerEntity {
   @NotNull
   private ZonedDateTime date;
 
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @OnDelete(action = OnDeleteAction.CASCADE)
   @JoinColumn(name = "user_id")
   private UserEntity userEntity;
 
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @OnDelete(action = OnDeleteAction.CASCADE)
   @JoinColumn(name = "question_id")
   private QuestionEntity questionEntity;
@@ -58,11 +98,11 @@ public class AnswerEntity {
     this.id = id;
   }
 
-  public String getUuid() {
+  public UUID getUuid() {
     return uuid;
   }
 
-  public void setUuid(String uuid) {
+  public void setUuid(UUID uuid) {
     this.uuid = uuid;
   }
 
@@ -12,29 +12,74 @@ import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.io.Serializable;
 import java.time.ZonedDateTime;
+import java.util.UUID;
 
 @Entity
 @Table(name = "question")
 @NamedQueries({
-  @NamedQuery(name = "getAllQuestions", query = "select q from QuestionEntity q"),
+  @NamedQuery(
+      name = "getQuestionsFirstPage",
+      query =
+          "select new com.upgrad.quora.service.common.QuestionSummary(q.id, q.uuid, q.content,"
+              + " q.date) from QuestionEntity q order by q.date desc, q.id desc"),
+  @NamedQuery(
+      name = "getQuestionsAfter",
+      query =
+          "select new com.upgrad.quora.service.common.QuestionSummary(q.id, q.uuid, q.content,"
+              + " q.date) from QuestionEntity q"
+              + " where q.date <= :date and (q.date < :date or (q.date = :date and q.id < :id))"
+              + " order by q.date desc, q.id desc"),
   @NamedQuery(
       name = "getQuestionByUuid",
       query = "select q from QuestionEntity q where q.uuid=:questionId"),
+  @NamedQuery(
+      name = "getQuestionWithOwnerByUuid",
+      query = "select q from QuestionEntity q join fetch q.userEntity where q.uuid=:questionId"),
+  @NamedQuery(
+      name = "getQuestionIdsByUuids",
+      query = "select q.uuid, q.id from QuestionEntity q where q.uuid in :uuids"),
+  @NamedQuery(
+      name = "getQuestionsByIds",
+      query =
+          "select new com.upgrad.quora.service.common.QuestionSummary(q.id, q.uuid, q.content,"
+              + " q.date) from QuestionEntity q where q.id in :ids"),
   @NamedQuery(
       name = "getAllQuestionByUser",
-      query = "select q from QuestionEntity q where q.userEntity=:user")
+      query =
+          "select new com.upgrad.quora.service.common.QuestionSummary(q.id, q.uuid, q.content,"
+              + " q.date) from QuestionEntity q where q.userEntity=:user"),
+  @NamedQuery(
+      name = "streamAllQuestions",
+      query =
+          "select new com.upgrad.quora.service.common.QuestionSummary(q.id, q.uuid, q.content,"
+              + " q.date) from QuestionEntity q order by q.date desc, q.id desc")
+})
+@NamedNativeQueries({
+  @NamedNativeQuery(
+      name = "searchQuestions",
+      query =
+          "select id, uuid, content, date, rank from ("
+              + "select q.id, cast(q.uuid as varchar) as uuid, q.content, q.date,"
+              + " ts_rank(q.content_tsv, query) as rank"
+              + " from question q, to_tsquery('english', :query) query"
+              + " where q.content_tsv @@ query) hits"
+              + " where rank < cast(:score as real) or (rank = cast(:score as real) and id < :id)"
+              + " order by rank desc, id desc")
 })
 public class QuestionEntity implements Serializable {
 
   @Id
   @Column(name = "id")
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "question_id_seq")
+  @SequenceGenerator(
+      name = "question_id_seq",
+      sequenceName = "question_id_seq",
+      allocationSize = 50)
   private Integer id;
 
   @Column(name = "uuid")
-  @Size(max = 200)
   @NotNull
-  private String uuid;
+  private UUID uuid;
 
   @Column(name = "content")
   @NotNull
@@ -44,7 +89,7 @@ public class QuestionEntity implements Serializable {
   @NotNull
   private ZonedDateTime date;
 
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @OnDelete(action = OnDeleteAction.CASCADE)
   @JoinColumn(name = "user_id")
   private UserEntity userEntity;
@@ -57,11 +102,11 @@ public class QuestionEntity implements Serializable {
     this.id = id;
   }
 
-  public String getUuid() {
+  public UUID getUuid() {
     return uuid;
   }
 
-  public void setUuid(String uuid) {
+  public void setUuid(UUID uuid) {
     this.uuid = uuid;
   }
 
@@ -11,25 +11,34 @@ import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.time.ZonedDateTime;
+import java.util.UUID;
 
 @Entity
 @Table(name = "user_auth")
 @NamedQueries({
   @NamedQuery(
       name = "userAuthByAccessToken",
-      query = "select u from UserAuthEntity u where u.accessToken=:accessToken")
+      query = "select u from UserAuthEntity u where u.accessTokenDigest=:accessTokenDigest"),
+  @NamedQuery(
+      name = "revokedUserAuths",
+      query =
+          "select u.uuid, u.expiresAt from UserAuthEntity u"
+              + " where u.logoutAt is not null and u.expiresAt > :now")
 })
 public class UserAuthEntity {
 
   @Id
   @Column(name = "id")
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_auth_id_seq")
+  @SequenceGenerator(
+      name = "user_auth_id_seq",
+      sequenceName = "user_auth_id_seq",
+      allocationSize = 50)
   private Integer id;
 
   @Column(name = "uuid")
   @NotNull
-  @Size(max = 200)
-  private String uuid;
+  private UUID uuid;
 
   @ManyToOne
   @OnDelete(action = OnDeleteAction.CASCADE)
@@ -41,6 +50,11 @@ public class UserAuthEntity {
   @Size(max = 500)
   private String accessToken;
 
+  @Column(name = "access_token_digest")
+  @NotNull
+  @Size(min = 32, max = 32)
+  private byte[] accessTokenDigest;
+
   @Column(name = "expires_at")
   @NotNull
   private ZonedDateTime expiresAt;
@@ -52,6 +66,9 @@ public class UserAuthEntity {
   @Column(name = "logout_at")
   private ZonedDateTime logoutAt;
 
+  // Set once the session is past expiresAt, see UserAuthTokenCache
+  @Transient private volatile boolean expired;
+
   public Integer getId() {
     return id;
   }
@@ -60,11 +77,11 @@ public class UserAuthEntity {
     this.id = id;
   }
 
-  public String getUuid() {
+  public UUID getUuid() {
     return uuid;
   }
 
-  public void setUuid(String uuid) {
+  public void setUuid(UUID uuid) {
     this.uuid = uuid;
   }
 
@@ -84,6 +101,14 @@ public class UserAuthEntity {
     this.accessToken = accessToken;
   }
 
+  public byte[] getAccessTokenDigest() {
+    return accessTokenDigest;
+  }
+
+  public void setAccessTokenDigest(byte[] accessTokenDigest) {
+    this.accessTokenDigest = accessTokenDigest;
+  }
+
   public ZonedDateTime getExpiresAt() {
     return expiresAt;
   }
@@ -108,6 +133,14 @@ public class UserAuthEntity {
     this.logoutAt = logoutAt;
   }
 
+  public boolean isExpired() {
+    return expired;
+  }
+
+  public void markExpired() {
+    this.expired = true;
+  }
+
   @Override
   public boolean equals(Object obj) {
     return new EqualsBuilder().append(this, obj).isEquals();
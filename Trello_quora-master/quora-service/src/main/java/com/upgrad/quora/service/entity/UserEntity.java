@@ -9,6 +9,7 @@ import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.io.Serializable;
+import java.util.UUID;
 
 @Entity
 @Table(name = "users")
@@ -17,19 +18,22 @@ import java.io.Serializable;
       name = "userByUserName",
       query = "select u from UserEntity u where u.userName=:userName"),
   @NamedQuery(name = "userByEmail", query = "select u from UserEntity u where u.email=:email"),
-  @NamedQuery(name = "userByUserId", query = "select u from UserEntity u where u.uuid=:userId")
+  @NamedQuery(name = "userByUserId", query = "select u from UserEntity u where u.uuid=:userId"),
+  @NamedQuery(
+      name = "streamUserNamesAndEmails",
+      query = "select u.userName, u.email from UserEntity u")
 })
 public class UserEntity implements Serializable {
 
   @Id
   @Column(name = "id")
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_seq")
+  @SequenceGenerator(name = "users_id_seq", sequenceName = "users_id_seq", allocationSize = 50)
   private Integer id;
 
   @Column(name = "uuid")
-  @Size(max = 200)
   @NotNull
-  private String uuid;
+  private UUID uuid;
 
   @Column(name = "firstname")
   @NotNull
@@ -63,6 +67,13 @@ public class UserEntity implements Serializable {
   @Size(max = 200)
   private String salt;
 
+  // Null for passwords hashed before the parameters were stored, see PasswordCryptographyProvider
+  @Column(name = "hash_iterations")
+  private Integer hashIterations;
+
+  @Column(name = "hash_key_length")
+  private Integer hashKeyLength;
+
   @Column(name = "country")
   @Size(max = 30)
   private String country;
@@ -91,11 +102,11 @@ public class UserEntity implements Serializable {
     this.id = id;
   }
 
-  public String getUuid() {
+  public UUID getUuid() {
     return uuid;
   }
 
-  public void setUuid(String uuid) {
+  public void setUuid(UUID uuid) {
     this.uuid = uuid;
   }
 
@@ -147,6 +158,22 @@ public class UserEntity implements Serializable {
     this.salt = salt;
   }
 
+  public Integer getHashIterations() {
+    return hashIterations;
+  }
+
+  public void setHashIterations(Integer hashIterations) {
+    this.hashIterations = hashIterations;
+  }
+
+  public Integer getHashKeyLength() {
+    return hashKeyLength;
+  }
+
+  public void setHashKeyLength(Integer hashKeyLength) {
+    this.hashKeyLength = hashKeyLength;
+  }
+
   public String getCountry() {
     return country;
   }